@@ -0,0 +1,115 @@
+package org.summerframework.core.model.field;
+
+import org.springframework.util.Assert;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The bounded and concurrent map that evicts its least recently referenced entries using the CLOCK (second chance)
+ * algorithm. The head of the clock queue is the hand, so a sweep continues where the previous one stopped, and the new
+ * entries are added behind the hand. The map may temporarily exceed its maximum size as only a single thread sweeps
+ * at a time.
+ */
+final class ClockMap<K, V> {
+    private final int maxSize;
+    private final ConcurrentMap<K, Entry<K, V>> map;
+    private final Queue<Entry<K, V>> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder evictions = new LongAdder();
+
+    ClockMap(int maxSize) {
+        Assert.isTrue(maxSize > 0, "The maximum size of the map must be positive!");
+        this.maxSize = maxSize;
+        // the map may temporarily exceed the maximum size before it is swept
+        this.map = new ConcurrentHashMap<>(Math.min(maxSize + maxSize / 4, 1 << 16));
+    }
+
+    /**
+     * Returns the value of the given key and marks it as referenced or null if there is none.
+     */
+    V get(K key) {
+        Entry<K, V> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.touch();
+        return entry.value;
+    }
+
+    /**
+     * Adds the given value unless there is one already, it returns the present value then.
+     */
+    V putIfAbsent(K key, V value) {
+        Entry<K, V> created = new Entry<>(key, value);
+        Entry<K, V> entry = map.putIfAbsent(key, created);
+        if (entry != null) {
+            // another thread has been faster
+            entry.touch();
+            return entry.value;
+        }
+        clock.add(created);
+        if (map.size() > maxSize) {
+            evict();
+        }
+        return null;
+    }
+
+    // moves the hand until the map is reduced to three quarters of its size, the referenced entries get their second
+    // chance at the end of the clock
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int target = maxSize - maxSize / 4;
+            Entry<K, V> entry;
+            while (map.size() > target && (entry = clock.poll()) != null) {
+                if (entry.referenced) {
+                    entry.referenced = false;
+                    clock.add(entry);
+                } else if (map.remove(entry.key, entry)) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    void clear() {
+        map.clear();
+        clock.clear();
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private static final class Entry<K, V> {
+        private final K key;
+        private final V value;
+        private volatile boolean referenced;
+
+        private Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        private void touch() {
+            // avoid the volatile write when the entry is already marked
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+
+}
@@ -4,7 +4,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.Assert;
 import org.summerframework.util.StringUtils;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
@@ -19,9 +18,19 @@ import java.util.List;
  */
 @Slf4j
 public class FieldPath implements Iterable<PathElement<?>> {
+    // the multiplicative inverse of 31 (modulo 2^32) that reverts a step of the hash code computation
+    private static final int HASH_INVERSE = 0xBDEF7BDF;
+    private static final byte UNKNOWN = 0, DIRECT = 1, INDIRECT = 2;
+
+    // the backing elements and their hash codes may be shared by any number of paths, each of them denotes a range
     private final PathElement[] elements;
-    private final boolean direct;
-    private final int hashCode;
+    private final int[] hashes;
+    private final int offset;
+    private final int length;
+    private byte direct;
+    // lazily computed, the race is benign as any thread computes the same value
+    private int hashCode;
+    private String value;
 
     /**
      * Creates a path to a field from the given field elements. For example given "boo", "foo" the "boo.foo" path is
@@ -40,8 +49,9 @@ public class FieldPath implements Iterable<PathElement<?>> {
             items[i] = "*".equals(element) ? PathElement.ANY_FIELD : new FieldElement(element);
         }
         this.elements = items;
-        this.hashCode = Arrays.hashCode(elements);
-        this.direct = resolveDirect();
+        this.hashes = hashes(items);
+        this.offset = 0;
+        this.length = items.length;
     }
 
     /**
@@ -50,9 +60,11 @@ public class FieldPath implements Iterable<PathElement<?>> {
      * @param index the array index must be more than -1
      */
     public FieldPath(int index) {
-        this.elements = new PathElement[]{new IndexedElement(index)};
-        this.hashCode = Arrays.hashCode(elements);
-        this.direct = true;
+        this.elements = new PathElement[]{IndexedElement.valueOf(index)};
+        this.hashes = hashes(this.elements);
+        this.offset = 0;
+        this.length = 1;
+        this.direct = DIRECT;
     }
 
     public FieldPath(PathElement<?> root) {
@@ -60,17 +72,64 @@ public class FieldPath implements Iterable<PathElement<?>> {
             throw new IllegalArgumentException("A root path element is required to create a new field path!");
         }
         this.elements = new PathElement[]{root};
-        this.hashCode = Arrays.hashCode(elements);
-        this.direct = root != PathElement.ANY_FIELD;
+        this.hashes = hashes(this.elements);
+        this.offset = 0;
+        this.length = 1;
+        this.direct = root != PathElement.ANY_FIELD ? DIRECT : INDIRECT;
     }
 
     public FieldPath(PathElement<?>[] elements) {
         if (elements.length == 0) {
             throw new IllegalArgumentException("At least one element is required to create a field path!");
         }
+        // the path is immutable, so the caller's array is copied before the hash codes are computed
+        this.elements = elements.clone();
+        this.hashes = hashes(this.elements);
+        this.offset = 0;
+        this.length = this.elements.length;
+    }
+
+    /**
+     * Creates a path of the given new array of elements that is not copied, so the caller must never change it.
+     *
+     * @throws IllegalArgumentException If there is no element given.
+     */
+    static FieldPath wrap(PathElement<?>[] elements) {
+        if (elements.length == 0) {
+            throw new IllegalArgumentException("At least one element is required to create a field path!");
+        }
+        return new FieldPath(elements, hashes(elements));
+    }
+
+    /**
+     * Creates a path of the given elements with already computed hash codes.
+     */
+    private FieldPath(PathElement[] elements, int[] hashes) {
         this.elements = elements;
-        this.hashCode = Arrays.hashCode(elements);
-        this.direct = resolveDirect();
+        this.hashes = hashes;
+        this.offset = 0;
+        this.length = elements.length;
+    }
+
+    /**
+     * Creates a view of the given range of the shared elements.
+     */
+    private FieldPath(PathElement[] elements, int[] hashes, int offset, int length, byte direct, int hashCode) {
+        this.elements = elements;
+        this.hashes = hashes;
+        this.offset = offset;
+        this.length = length;
+        this.direct = direct;
+        this.hashCode = hashCode;
+    }
+
+    private static int[] hashes(PathElement[] elements) {
+        int[] result = new int[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            PathElement element = elements[i];
+            result[i] = element == null ? 0 : element.hashCode();
+        }
+        return result;
     }
 
     /**
@@ -83,20 +142,20 @@ public class FieldPath implements Iterable<PathElement<?>> {
     }
 
     /**
-     * Creates and returns a single element for the given field index.
+     * Returns a single element for the given field index, the elements of small indexes are shared flyweights.
      *
      * @param index the index to a collection or array field
      */
     public static PathElement element(int index) {
-        return new IndexedElement(index);
+        return IndexedElement.valueOf(index);
     }
 
     /**
      * Returns an array of the elements this path consists of.
      */
     public PathElement<?>[] elements() {
-        PathElement<?>[] result = new PathElement[elements.length];
-        System.arraycopy(elements, 0, result, 0, result.length);
+        PathElement<?>[] result = new PathElement[length];
+        System.arraycopy(elements, offset, result, 0, length);
         return result;
     }
 
@@ -104,7 +163,7 @@ public class FieldPath implements Iterable<PathElement<?>> {
      * Returns the number of the elements this path consists of.
      */
     public int length() {
-        return elements.length;
+        return length;
     }
 
     /**
@@ -112,35 +171,70 @@ public class FieldPath implements Iterable<PathElement<?>> {
      */
     public String field() {
         // there is always at least a single item
-        Object value = elements[elements.length - 1].value();
+        Object value = tail().value();
         return value == null ? null : value.toString();
     }
 
     /**
-     * Returns the path iterable of this field path, that is the path without the last element.
+     * Returns the path iterable of this field path, that is the path without the last element. The elements are not
+     * copied.
      */
     public Iterable<PathElement<?>> path() {
         // there is always at least a single item
-        int length = elements.length - 1;
-        if (length == 0) {
+        if (length == 1) {
             // root, return empty iterator
             return Collections.emptyList();
         }
-        PathElement<?>[] path = new PathElement[length];
-        System.arraycopy(elements, 0, path, 0, length);
-        return Arrays.asList(path);
+        return parent();
     }
 
     /**
-     * Returns the parent of this path or <code>null</code> if this is a single element path.
+     * Returns the parent of this path or <code>null</code> if this is a single element path. The parent is a view
+     * sharing the elements of this path, so it is created in a constant time.
      */
     public FieldPath parent() {
-        if (elements.length <= 1) {
+        if (length <= 1) {
             return null;
         }
-        PathElement[] parent = new PathElement[elements.length - 1];
-        System.arraycopy(elements, 0, parent, 0, parent.length);
-        return new FieldPath(parent);
+        PathElement last = tail();
+        // the parent of an indirect path is known to be indirect only if the wildcard is not the last element
+        byte direct = this.direct == INDIRECT && last == PathElement.ANY_FIELD ? UNKNOWN : this.direct;
+        int hashCode = this.hashCode;
+        if (hashCode != 0) {
+            // revert the last step of the hash code computation
+            hashCode = (hashCode - hashes[offset + length - 1]) * HASH_INVERSE;
+        }
+        return new FieldPath(elements, hashes, offset, length - 1, direct, hashCode);
+    }
+
+    /**
+     * Returns the sub path of this path from the <code>from</code> position inclusive to the <code>to</code> position
+     * exclusive. The sub path is a view sharing the elements of this path, so it is created in a constant time.
+     *
+     * @param from the start position of the sub path, inclusive
+     * @param to   the end position of the sub path, exclusive, it must be more than <code>from</code>
+     * @throws IndexOutOfBoundsException If the range is out of this path or it is empty.
+     */
+    public FieldPath subPath(int from, int to) {
+        if (from < 0 || to > length || from >= to) {
+            throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ") of the path with " + length +
+                    " elements!");
+        }
+        if (from == 0 && to == length) {
+            return this;
+        }
+        return new FieldPath(elements, hashes, offset + from, to - from, direct == DIRECT ? DIRECT : UNKNOWN, 0);
+    }
+
+    /**
+     * Returns the prefix of this path with the given number of the leading elements. The prefix is a view sharing the
+     * elements of this path, so it is created in a constant time.
+     *
+     * @param length the number of the elements of the prefix, from 1 to {@link #length()} inclusive
+     * @throws IndexOutOfBoundsException If the length is out of this path.
+     */
+    public FieldPath prefix(int length) {
+        return subPath(0, length);
     }
 
     /**
@@ -153,10 +247,13 @@ public class FieldPath implements Iterable<PathElement<?>> {
         if (path == null) {
             return this;
         }
-        PathElement[] result = new PathElement[elements.length + path.elements.length];
-        System.arraycopy(elements, 0, result, 0, elements.length);
-        System.arraycopy(path.elements, 0, result, elements.length, path.elements.length);
-        return new FieldPath(result);
+        PathElement[] result = new PathElement[length + path.length];
+        System.arraycopy(elements, offset, result, 0, length);
+        System.arraycopy(path.elements, path.offset, result, length, path.length);
+        int[] hashes = new int[result.length];
+        System.arraycopy(this.hashes, offset, hashes, 0, length);
+        System.arraycopy(path.hashes, path.offset, hashes, length, path.length);
+        return new FieldPath(result, hashes);
     }
 
     /**
@@ -165,18 +262,17 @@ public class FieldPath implements Iterable<PathElement<?>> {
      * @param name the required name of the child
      */
     public FieldPath child(String name) {
-        PathElement[] elements = new PathElement[this.elements.length + 1];
-        System.arraycopy(this.elements, 0, elements, 0, this.elements.length);
-        elements[this.elements.length] = "*".equals(name) ? PathElement.ANY_FIELD : new FieldElement(name);
-        return new FieldPath(elements);
+        return child("*".equals(name) ? PathElement.ANY_FIELD : new FieldElement(name));
     }
 
     public FieldPath child(PathElement element) {
-        int last = this.elements.length;
-        PathElement[] elements = new PathElement[last + 1];
-        System.arraycopy(this.elements, 0, elements, 0, last);
-        elements[last] = element;
-        return new FieldPath(elements);
+        PathElement[] elements = new PathElement[length + 1];
+        System.arraycopy(this.elements, offset, elements, 0, length);
+        elements[length] = element;
+        int[] hashes = new int[length + 1];
+        System.arraycopy(this.hashes, offset, hashes, 0, length);
+        hashes[length] = element.hashCode();
+        return FieldPathPool.DEFAULT.canonical(new FieldPath(elements, hashes));
     }
 
     /**
@@ -185,10 +281,7 @@ public class FieldPath implements Iterable<PathElement<?>> {
      * @param index the index of the child
      */
     public FieldPath child(int index) {
-        PathElement[] elements = new PathElement[this.elements.length + 1];
-        System.arraycopy(this.elements, 0, elements, 0, this.elements.length);
-        elements[this.elements.length] = new IndexedElement(index);
-        return new FieldPath(elements);
+        return child(IndexedElement.valueOf(index));
     }
 
     /**
@@ -198,12 +291,12 @@ public class FieldPath implements Iterable<PathElement<?>> {
      */
     public FieldPath sibling(PathElement<?> element) {
         Assert.notNull(element, "Unable to navigate to a sibling node, no sibling is given!");
-        Object value = element.value();
-        if (value instanceof Integer) {
-            return sibling((Integer) value);
-        } else {
-            return sibling(value.toString());
+        int index = element.index();
+        if (index >= 0) {
+            return sibling(index);
         }
+        // a field element or the wildcard
+        return replaceTail(element);
     }
 
     /**
@@ -213,11 +306,7 @@ public class FieldPath implements Iterable<PathElement<?>> {
      */
     public FieldPath sibling(String name) {
         Assert.notNull(name, "Unable to navigate to a sibling node, no sibling field name is given!");
-        PathElement[] elements = new PathElement[this.elements.length];
-        int last = elements.length - 1;
-        System.arraycopy(this.elements, 0, elements, 0, last);
-        elements[last] = "*".equals(name) ? PathElement.ANY_FIELD : new FieldElement(name);
-        return new FieldPath(elements);
+        return replaceTail("*".equals(name) ? PathElement.ANY_FIELD : new FieldElement(name));
     }
 
     /**
@@ -226,11 +315,18 @@ public class FieldPath implements Iterable<PathElement<?>> {
      * @param index the index of the sibling
      */
     public FieldPath sibling(int index) {
-        PathElement[] elements = new PathElement[this.elements.length];
-        int last = elements.length - 1;
-        System.arraycopy(this.elements, 0, elements, 0, last);
-        elements[last] = new IndexedElement(index);
-        return new FieldPath(elements);
+        return replaceTail(IndexedElement.valueOf(index));
+    }
+
+    private FieldPath replaceTail(PathElement element) {
+        PathElement[] elements = new PathElement[length];
+        int last = length - 1;
+        System.arraycopy(this.elements, offset, elements, 0, last);
+        elements[last] = element;
+        int[] hashes = new int[length];
+        System.arraycopy(this.hashes, offset, hashes, 0, last);
+        hashes[last] = element.hashCode();
+        return FieldPathPool.DEFAULT.canonical(new FieldPath(elements, hashes));
     }
 
     /**
@@ -238,7 +334,7 @@ public class FieldPath implements Iterable<PathElement<?>> {
      */
     public PathElement<?> tail() {
         // there is always at least one element
-        return elements[elements.length - 1];
+        return elements[offset + length - 1];
     }
 
     /**
@@ -246,19 +342,38 @@ public class FieldPath implements Iterable<PathElement<?>> {
      */
     public PathElement<?> head() {
         // there is always at least one element
-        return elements[0];
+        return elements[offset];
     }
 
+    /**
+     * Returns the element at the given position of this path without copying the elements.
+     *
+     * @param index the position of the element, from 0 to {@link #length()} exclusive
+     * @throws IndexOutOfBoundsException If the index is out of this path.
+     */
+    public PathElement<?> elementAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("The " + index + " index is out of the path with " + length +
+                    " elements!");
+        }
+        return elements[offset + index];
+    }
 
     /**
-     * Returns the String representation of this path.
+     * Returns the String representation of this path. The representation is rendered only once.
      */
     public String value() {
-        final StringBuilder sb = new StringBuilder(elements.length * 8);
-        for (PathElement item : elements) {
-            item.printTo(sb);
+        String result = value;
+        if (result == null) {
+            final StringBuilder sb = new StringBuilder(length * 8);
+            for (int i = offset, end = offset + length; i < end; i++) {
+                elements[i].printTo(sb);
+            }
+            // the race is benign, the String is immutable and any thread renders the same value
+            result = sb.toString();
+            value = result;
         }
-        return sb.toString();
+        return result;
     }
 
     /**
@@ -266,16 +381,19 @@ public class FieldPath implements Iterable<PathElement<?>> {
      * path.
      */
     public boolean isDirect() {
-        return direct;
+        if (direct == UNKNOWN) {
+            direct = resolveDirect();
+        }
+        return direct == DIRECT;
     }
 
-    private boolean resolveDirect() {
-        for (PathElement item : elements) {
-            if (item == PathElement.ANY_FIELD) {
-                return false;
+    private byte resolveDirect() {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            if (elements[i] == PathElement.ANY_FIELD) {
+                return INDIRECT;
             }
         }
-        return true;
+        return DIRECT;
     }
 
     /**
@@ -291,15 +409,28 @@ public class FieldPath implements Iterable<PathElement<?>> {
         if (this == other) {
             return true;
         }
-        int length = Math.min(this.elements.length, other.elements.length);
+        int length = Math.min(this.length, other.length);
         for (int i = 0; i < length; i++) {
-            if (!elements[i].matches(other.elements[i])) {
+            if (!matches(offset + i, other, other.offset + i)) {
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * Returns true if the element at the given position matches the element of the other path. The hash codes of the
+     * elements are compared first so most of the not matching elements are rejected without comparing them.
+     */
+    private boolean matches(int i, FieldPath other, int j) {
+        PathElement element = elements[i];
+        PathElement otherElement = other.elements[j];
+        if (element == otherElement || element == PathElement.ANY_FIELD || otherElement == PathElement.ANY_FIELD) {
+            return true;
+        }
+        return hashes[i] == other.hashes[j] && element.matches(otherElement);
+    }
+
     /**
      * Returns true if the other path matches this one. This methods differs from the equals in the way that it also
      * handles wildcard elements of any path and it compares only the shortest paths' elements.
@@ -321,22 +452,40 @@ public class FieldPath implements Iterable<PathElement<?>> {
         if (o == null || getClass() != o.getClass()) return false;
 
         FieldPath that = (FieldPath) o;
-        int length = elements.length;
-        if (length != that.elements.length) {
+        if (length != that.length) {
+            return false;
+        }
+        if (elements == that.elements && offset == that.offset) {
+            // views of the same elements
+            return true;
+        }
+        if (hashCode != 0 && that.hashCode != 0 && hashCode != that.hashCode) {
             return false;
         }
         // iterate from the end as it is more likely that the paths are not equal from the tail
         for (int i = length - 1; i >= 0; i--) {
-            if (!elements[i].equals(that.elements[i])) {
+            int j = offset + i, k = that.offset + i;
+            if (hashes[j] != that.hashes[k] || !elements[j].equals(that.elements[k])) {
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * Returns the hash code computed the same way as {@link Arrays#hashCode(Object[])} of the {@link #elements()}.
+     */
     @Override
     public int hashCode() {
-        return hashCode;
+        int result = hashCode;
+        if (result == 0) {
+            result = 1;
+            for (int i = offset, end = offset + length; i < end; i++) {
+                result = 31 * result + hashes[i];
+            }
+            hashCode = result;
+        }
+        return result;
     }
 
     @Override
@@ -345,28 +494,46 @@ public class FieldPath implements Iterable<PathElement<?>> {
     }
 
     /**
-     * Creates a new field path from the given path. It returns null if empty or no path is given at all. TODO describe
-     * more.
+     * Creates a new field path from the given path. It returns null if empty or no path is given at all. The returned
+     * path is the canonical instance shared through the {@link FieldPathPool#DEFAULT default pool}, so a frequently used
+     * path is parsed only once. The pool is bounded and evicts the least recently used paths, so the paths must still
+     * be compared by {@link #equals(Object)}. The paths created by {@link #valueOf(CharSequence, int, int)} are not
+     * pooled.
      *
      * @param path the optional path
      */
     public static FieldPath valueOf(String path) {
-        if (StringUtils.isEmpty(path)) {
-            return null;
+        return FieldPathPool.DEFAULT.valueOf(path);
+    }
+
+    /**
+     * Parses the given non empty path to a new (not pooled) field path.
+     *
+     * @param path the required path
+     */
+    static FieldPath parse(String path) {
+        return wrap(new PathParser(path, 0, path.length()).parse());
+    }
+
+    /**
+     * Creates a new field path from the given range of the character sequence, so a path embedded in a larger buffer
+     * (JSON pointer, query string, etc.) may be parsed without creating a substring first. Unlike {@link
+     * #valueOf(String)} the result is not pooled. It returns null if the range is empty.
+     *
+     * @param path  the required sequence containing the path
+     * @param start the start index of the path, inclusive
+     * @param end   the end index of the path, exclusive
+     * @throws IndexOutOfBoundsException If the range is out of the sequence bounds.
+     */
+    public static FieldPath valueOf(CharSequence path, int start, int end) {
+        if (start < 0 || end > path.length() || start > end) {
+            throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end + ") of the path with " +
+                    path.length() + " characters!");
         }
-        PathParser parser = new PathParser(path);
-        List<PathElement> items = new ArrayList<>();
-        while (parser.hasNext()) {
-            Object token = parser.next();
-            if (token instanceof Number) {
-                items.add(new IndexedElement(((Number) token).intValue()));
-            } else if ("*".equals(token)) {
-                items.add(PathElement.ANY_FIELD);
-            } else {
-                items.add(new FieldElement(token.toString()));
-            }
+        if (start == end) {
+            return null;
         }
-        return new FieldPath(items.toArray(new PathElement[items.size()]));
+        return wrap(new PathParser(path, start, end).parse());
     }
 
     /**
@@ -378,7 +545,7 @@ public class FieldPath implements Iterable<PathElement<?>> {
         if (elements == null || elements.size() == 0) {
             return null;
         }
-        return new FieldPath(elements.toArray(new PathElement[elements.size()]));
+        return wrap(elements.toArray(new PathElement<?>[elements.size()]));
     }
 
     @Override
@@ -387,26 +554,23 @@ public class FieldPath implements Iterable<PathElement<?>> {
     }
 
     public boolean startsWith(FieldPath path) {
-        if (path == null || path.length() > this.length()) {
+        if (path == null || path.length > this.length) {
             return false;
         }
-        for (int i = 0; i < path.elements.length; i++) {
-            PathElement<?> thisElement = this.elements[i];
-            PathElement<?> thatElement = path.elements[i];
-            if (thisElement.matches(thatElement)) {
-                continue;
+        for (int i = 0; i < path.length; i++) {
+            if (!matches(offset + i, path, path.offset + i)) {
+                return false;
             }
-            return false;
         }
         return true;
     }
 
     protected class PathElementIterator implements Iterator<PathElement<?>> {
-        int i = 0;
+        int i = offset;
 
         @Override
         public boolean hasNext() {
-            return i < elements.length;
+            return i < offset + length;
         }
 
         @Override
@@ -470,6 +634,15 @@ public class FieldPath implements Iterable<PathElement<?>> {
     }
 
     private static class IndexedElement implements PathElement<Integer> {
+        // the flyweights of the most used small indexes
+        private static final IndexedElement[] CACHE = new IndexedElement[1024];
+
+        static {
+            for (int i = 0; i < CACHE.length; i++) {
+                CACHE[i] = new IndexedElement(i);
+            }
+        }
+
         private final int index;
 
         private IndexedElement(int index) {
@@ -480,6 +653,16 @@ public class FieldPath implements Iterable<PathElement<?>> {
             this.index = index;
         }
 
+        /**
+         * Returns the shared element of a small index or a new element of a large one.
+         */
+        static IndexedElement valueOf(int index) {
+            if (index >= 0 && index < CACHE.length) {
+                return CACHE[index];
+            }
+            return new IndexedElement(index);
+        }
+
         @Override
         public void printTo(StringBuilder builder) {
             builder.append('[').append(index).append(']');
@@ -490,9 +673,14 @@ public class FieldPath implements Iterable<PathElement<?>> {
             return index;
         }
 
+        @Override
+        public int index() {
+            return index;
+        }
+
         @Override
         public boolean matches(PathElement other) {
-            return ((other instanceof IndexedElement) && ((IndexedElement) other).index == index) || other == ANY_FIELD;
+            return other == ANY_FIELD || other != null && other.index() == index;
         }
 
         @Override
@@ -515,58 +703,97 @@ public class FieldPath implements Iterable<PathElement<?>> {
         }
     }
 
+    /**
+     * The single pass path parser. It scans the given range of the sequence only once, slices the field names directly
+     * from the sequence and parses the indexes in place.
+     */
     private static class PathParser {
-        private final char[] value;
-        private int i = 0;
-        private StringBuilder token = new StringBuilder(8);
-        // state variable
-        private boolean inArray = false;
-
-        PathParser(String value) {
-            this.value = value.toCharArray();
-        }
-
-        public boolean hasNext() {
-            return i < value.length;
-        }
-
-        public Object next() {
-            // clear the token first
-            token.setLength(0);
-            while (i < value.length) {
-                char ch = value[i++];
+        private final CharSequence value;
+        private final int start;
+        private final int end;
+        private PathElement[] elements = new PathElement[8];
+        private int size = 0;
+
+        PathParser(CharSequence value, int start, int end) {
+            this.value = value;
+            this.start = start;
+            this.end = end;
+        }
+
+        PathElement[] parse() {
+            int tokenStart = start;
+            boolean inArray = false;
+            for (int i = start; i < end; i++) {
+                char ch = value.charAt(i);
                 if (ch == '.') {
-                    // item separator
-                    if (token.length() == 0) {
-                        // probably the end of array + field separator '].' continue on next char
-                        continue;
-                    }
-                    // the read token must be a generic String element
-                    return token.toString();
-                }
-                if (ch == '[') {
+                    // item separator, an empty token is probably the end of array + field separator '].'
+                    addField(tokenStart, i);
+                    tokenStart = i + 1;
+                } else if (ch == '[') {
+                    addField(tokenStart, i);
                     inArray = true;
-                    return token.toString();
-                }
-                if (ch == ']') {
+                    tokenStart = i + 1;
+                } else if (ch == ']') {
                     if (!inArray) {
                         throw new FieldPathException("field.path.invalid",
-                                "End of array ']' encountered at position " + i + " in the '" + new String(value) +
-                                        "' path, but a start character '[' is missing!"
+                                "End of array ']' encountered at position " + (i - start + 1) + " in the '" +
+                                        value.subSequence(start, end) + "' path, but a start character '[' is missing!"
                         );
                     }
                     inArray = false;
-                    String value = token.toString();
-                    try {
-                        return Integer.valueOf(value);
-                    } catch (NumberFormatException e) {
-                        // an associative array like in JavaScript is probably given
-                        return value;
-                    }
+                    addIndex(tokenStart, i);
+                    tokenStart = i + 1;
+                }
+            }
+            if (inArray) {
+                throw invalid("the end of array ']' is missing");
+            }
+            addField(tokenStart, end);
+            return size == elements.length ? elements : Arrays.copyOf(elements, size);
+        }
+
+        private void addField(int from, int to) {
+            if (from == to) {
+                return;
+            }
+            if (to - from == 1 && value.charAt(from) == '*') {
+                add(PathElement.ANY_FIELD);
+            } else {
+                add(new FieldElement(value.subSequence(from, to).toString()));
+            }
+        }
+
+        private void addIndex(int from, int to) {
+            if (from == to) {
+                throw invalid("an empty array index '[]' is given at position " + (from - start));
+            }
+            char sign = value.charAt(from);
+            if (sign == '-' || sign == '+') {
+                throw invalid("a signed array index is given at position " + (from - start + 1));
+            }
+            int index = 0;
+            for (int i = from; i < to; i++) {
+                int digit = value.charAt(i) - '0';
+                if (digit < 0 || digit > 9 || index > (Integer.MAX_VALUE - digit) / 10) {
+                    // an associative array like in JavaScript is probably given
+                    addField(from, to);
+                    return;
                 }
-                token.append(ch);
+                index = index * 10 + digit;
             }
-            return token.toString();
+            add(IndexedElement.valueOf(index));
+        }
+
+        private void add(PathElement element) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size << 1);
+            }
+            elements[size++] = element;
+        }
+
+        private FieldPathException invalid(String reason) {
+            return new FieldPathException("field.path.invalid",
+                    "Unable to parse the '" + value.subSequence(start, end) + "' path, " + reason + "!");
         }
     }
 
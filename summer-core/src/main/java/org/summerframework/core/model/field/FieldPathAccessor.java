@@ -0,0 +1,515 @@
+package org.summerframework.core.model.field;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The accessor that reads and writes the values addressed by a {@link FieldPath} inside nested Maps, Lists, arrays and
+ * POJOs. The path is compiled once into a chain of steps. A field step reads a Map entry or a POJO property and an
+ * indexed step reads a List or an array item. The POJO properties are accessed through method handles that are
+ * resolved once per class, so there is no reflection on the hot path.
+ * <p>
+ * Only direct paths may be used to {@link #get(Object) get}, {@link #set(Object, Object) set} or {@link
+ * #remove(Object) remove} a value. The values of any path, including the wildcard ones, may be lazily iterated by the
+ * {@link #iterator(Object)}. The accessor is immutable and thread safe, use {@link #of(FieldPath)} to get a shared
+ * accessor of a path.
+ */
+public class FieldPathAccessor {
+    private static final int MAX_CACHED_ACCESSORS = 1024;
+    // the accessors of the paths no longer used are evicted, so the user supplied paths don't take the cache over
+    private static final ClockMap<FieldPath, FieldPathAccessor> accessors = new ClockMap<>(MAX_CACHED_ACCESSORS);
+
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final ClassValue<Map<String, Property>> properties = new ClassValue<Map<String, Property>>() {
+        @Override
+        protected Map<String, Property> computeValue(Class<?> type) {
+            return resolveProperties(type);
+        }
+    };
+
+    private final FieldPath path;
+    private final Step[] steps;
+
+    private FieldPathAccessor(FieldPath path) {
+        Assert.notNull(path, "Unable to create a field path accessor, no path is given!");
+        this.path = path;
+        this.steps = new Step[path.length()];
+        for (int i = 0; i < steps.length; i++) {
+            PathElement<?> element = path.elementAt(i);
+            if (element == PathElement.ANY_FIELD) {
+                steps[i] = new AnyStep();
+            } else if (element.index() >= 0) {
+                steps[i] = new IndexStep(element.index());
+            } else {
+                steps[i] = new FieldStep(element.value().toString());
+            }
+        }
+    }
+
+    /**
+     * Returns the shared accessor of the given path. The accessors of the recently used paths are cached.
+     *
+     * @param path the required path
+     */
+    public static FieldPathAccessor of(FieldPath path) {
+        FieldPathAccessor result = accessors.get(path);
+        if (result == null) {
+            result = new FieldPathAccessor(path);
+            FieldPathAccessor previous = accessors.putIfAbsent(path, result);
+            if (previous != null) {
+                result = previous;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compiles a new accessor of the given path, the accessor is not shared.
+     *
+     * @param path the required path
+     */
+    public static FieldPathAccessor compile(FieldPath path) {
+        return new FieldPathAccessor(path);
+    }
+
+    public FieldPath getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the value addressed by the path in the given root object. It returns null if the value or any value on
+     * the path is missing.
+     *
+     * @param root the optional root object
+     * @throws FieldPathException If the path is not direct or a value is not accessible.
+     */
+    public Object get(Object root) {
+        checkDirect("get");
+        Object result = root;
+        for (int i = 0; i < steps.length && result != null; i++) {
+            result = steps[i].get(result);
+        }
+        return result;
+    }
+
+    /**
+     * Sets the value addressed by the path in the given root object. All the values on the path must exist. A List
+     * item is replaced, except the item just after the last one that is appended, so a List may be filled item by
+     * item. An array item is only replaced as an array can't grow.
+     *
+     * @param root  the required root object
+     * @param value the optional value to set
+     * @throws FieldPathException If the path is not direct or any value on the path is missing or not writable.
+     */
+    public void set(Object root, Object value) {
+        checkDirect("set");
+        steps[steps.length - 1].set(parent(root, "set"), value);
+    }
+
+    /**
+     * Removes the value addressed by the path from the given root object and returns the removed value. A Map entry or
+     * a List item is removed, a POJO property is set to null.
+     *
+     * @param root the required root object
+     * @throws FieldPathException If the path is not direct or any value on the path is missing or not writable.
+     */
+    public Object remove(Object root) {
+        checkDirect("remove");
+        return steps[steps.length - 1].remove(parent(root, "remove"));
+    }
+
+    /**
+     * Returns the lazy iterator of all the non null values addressed by the path in the given root object. A wildcard
+     * element fans out to all the values of a Map, items of a List or an array or readable properties of a POJO.
+     *
+     * @param root the optional root object
+     */
+    public Iterator<Object> iterator(Object root) {
+        return new ValueIterator(root);
+    }
+
+    private Object parent(Object root, String operation) {
+        Assert.notNull(root, "Unable to " + operation + " the '" + path + "' path value, no root object is given!");
+        Object result = root;
+        for (int i = 0, last = steps.length - 1; i < last; i++) {
+            result = steps[i].get(result);
+            if (result == null) {
+                throw new FieldPathException("field.path.unreachable", "Unable to " + operation + " the '" + path +
+                        "' path value, the '" + path.prefix(i + 1) + "' value is missing!");
+            }
+        }
+        return result;
+    }
+
+    private void checkDirect(String operation) {
+        if (!path.isDirect()) {
+            throw new FieldPathException("field.path.indirect", "Unable to " + operation + " the value of the '" + path
+                    + "' path, only a direct path may be used!");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FieldPathAccessor{" + path + "}";
+    }
+
+    private static Map<String, Property> resolveProperties(Class<?> type) {
+        Map<String, Property> result = new LinkedHashMap<>();
+        for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(type)) {
+            String name = descriptor.getName();
+            if ("class".equals(name)) {
+                continue;
+            }
+            MethodHandle getter = unreflect(descriptor.getReadMethod(), GETTER_TYPE);
+            MethodHandle setter = unreflect(descriptor.getWriteMethod(), SETTER_TYPE);
+            if (getter != null || setter != null) {
+                result.put(name, new Property(name, getter, setter));
+            }
+        }
+        // fall back to the fields for the properties without accessor methods
+        ReflectionUtils.doWithFields(type, field -> {
+            Property property = result.get(field.getName());
+            MethodHandle getter = property == null ? null : property.getter;
+            MethodHandle setter = property == null ? null : property.setter;
+            if (getter != null && setter != null) {
+                return;
+            }
+            if (getter == null) {
+                getter = unreflectField(field, true);
+            }
+            if (setter == null && !Modifier.isFinal(field.getModifiers())) {
+                setter = unreflectField(field, false);
+            }
+            if (getter != null || setter != null) {
+                result.put(field.getName(), new Property(field.getName(), getter, setter));
+            }
+        }, field -> !Modifier.isStatic(field.getModifiers()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static MethodHandle unreflect(Method method, MethodType type) {
+        if (method == null) {
+            return null;
+        }
+        try {
+            ReflectionUtils.makeAccessible(method);
+            return lookup.unreflect(method).asType(type);
+        } catch (IllegalAccessException | RuntimeException e) {
+            // the method is not accessible
+            return null;
+        }
+    }
+
+    private static MethodHandle unreflectField(Field field, boolean getter) {
+        try {
+            ReflectionUtils.makeAccessible(field);
+            if (getter) {
+                return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+            }
+            return lookup.unreflectSetter(field).asType(SETTER_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) {
+            // the field is not accessible
+            return null;
+        }
+    }
+
+    // the errors are never wrapped, they are rethrown as they are by the callers
+    private static FieldPathException accessFailure(String operation, Object name, Object target, Throwable cause) {
+        return new FieldPathException("field.path.access", "Unable to " + operation + " the '" + name +
+                "' value of the " + target.getClass().getName() + "!",
+                cause instanceof Exception ? (Exception) cause : new UndeclaredThrowableException(cause));
+    }
+
+    private static class Property {
+        private final String name;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private Property(String name, MethodHandle getter, MethodHandle setter) {
+            this.name = name;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        private Object get(Object target) {
+            if (getter == null) {
+                return null;
+            }
+            try {
+                return (Object) getter.invokeExact(target);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw accessFailure("get", name, target, e);
+            }
+        }
+
+        private void set(Object target, Object value) {
+            if (setter == null) {
+                throw new FieldPathException("field.path.readonly", "Unable to set the '" + name + "' value of the " +
+                        target.getClass().getName() + ", the property is not writable!");
+            }
+            try {
+                setter.invokeExact(target, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw accessFailure("set", name, target, e);
+            }
+        }
+    }
+
+    private abstract static class Step {
+
+        // returns null if there is no value
+        abstract Object get(Object target);
+
+        abstract void set(Object target, Object value);
+
+        abstract Object remove(Object target);
+
+        Iterator<?> children(Object target) {
+            Object value = get(target);
+            return value == null ? Collections.emptyIterator() : Collections.singleton(value).iterator();
+        }
+    }
+
+    private static class FieldStep extends Step {
+        private final String name;
+
+        private FieldStep(String name) {
+            this.name = name;
+        }
+
+        @Override
+        Object get(Object target) {
+            if (target instanceof Map) {
+                return ((Map<?, ?>) target).get(name);
+            }
+            Property property = properties.get(target.getClass()).get(name);
+            return property == null ? null : property.get(target);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void set(Object target, Object value) {
+            if (target instanceof Map) {
+                ((Map<String, Object>) target).put(name, value);
+                return;
+            }
+            property(target).set(target, value);
+        }
+
+        @Override
+        Object remove(Object target) {
+            if (target instanceof Map) {
+                return ((Map<?, ?>) target).remove(name);
+            }
+            Property property = property(target);
+            Object result = property.get(target);
+            property.set(target, null);
+            return result;
+        }
+
+        private Property property(Object target) {
+            Property property = properties.get(target.getClass()).get(name);
+            if (property == null) {
+                throw new FieldPathException("field.path.unknown", "Unable to access the '" + name + "' value, the " +
+                        target.getClass().getName() + " has no such property!");
+            }
+            return property;
+        }
+    }
+
+    private static class IndexStep extends Step {
+        private final int index;
+
+        private IndexStep(int index) {
+            this.index = index;
+        }
+
+        @Override
+        Object get(Object target) {
+            if (target instanceof List) {
+                List<?> list = (List<?>) target;
+                return index < list.size() ? list.get(index) : null;
+            }
+            if (target.getClass().isArray()) {
+                return index < Array.getLength(target) ? Array.get(target, index) : null;
+            }
+            return null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void set(Object target, Object value) {
+            if (target instanceof List) {
+                List<Object> list = (List<Object>) target;
+                if (index < list.size()) {
+                    list.set(index, value);
+                    return;
+                }
+                if (index == list.size()) {
+                    // the next item is appended, any further index is out of range
+                    list.add(value);
+                    return;
+                }
+            } else if (target.getClass().isArray() && index < Array.getLength(target)) {
+                Array.set(target, index, value);
+                return;
+            }
+            throw unreachable(target);
+        }
+
+        @Override
+        Object remove(Object target) {
+            if (target instanceof List && index < ((List<?>) target).size()) {
+                return ((List<?>) target).remove(index);
+            }
+            throw unreachable(target);
+        }
+
+        private FieldPathException unreachable(Object target) {
+            return new FieldPathException("field.path.unreachable", "Unable to access the [" + index + "] item of the "
+                    + target.getClass().getName() + ", it is not a List or an array or the index is out of range!");
+        }
+    }
+
+    private static class AnyStep extends Step {
+
+        @Override
+        Object get(Object target) {
+            throw wildcard("get", target);
+        }
+
+        @Override
+        void set(Object target, Object value) {
+            throw wildcard("set", target);
+        }
+
+        @Override
+        Object remove(Object target) {
+            throw wildcard("remove", target);
+        }
+
+        private FieldPathException wildcard(String operation, Object target) {
+            return new FieldPathException("field.path.indirect", "Unable to " + operation + " the '*' value of the " +
+                    target.getClass().getName() + ", the wildcard addresses all the values!");
+        }
+
+        @Override
+        Iterator<?> children(Object target) {
+            if (target instanceof Map) {
+                return ((Map<?, ?>) target).values().iterator();
+            }
+            if (target instanceof Collection) {
+                return ((Collection<?>) target).iterator();
+            }
+            if (target.getClass().isArray()) {
+                return new ArrayIterator(target);
+            }
+            Iterator<Property> iterator = properties.get(target.getClass()).values().iterator();
+            return new Iterator<Object>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Object next() {
+                    return iterator.next().get(target);
+                }
+            };
+        }
+    }
+
+    private static class ArrayIterator implements Iterator<Object> {
+        private final Object array;
+        private final int length;
+        private int i = 0;
+
+        private ArrayIterator(Object array) {
+            this.array = array;
+            this.length = Array.getLength(array);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return i < length;
+        }
+
+        @Override
+        public Object next() {
+            if (i >= length) {
+                throw new NoSuchElementException();
+            }
+            return Array.get(array, i++);
+        }
+    }
+
+    /**
+     * The depth first iterator of the values, each level iterates the values of a step.
+     */
+    private class ValueIterator implements Iterator<Object> {
+        private final Iterator<?>[] levels = new Iterator<?>[steps.length + 1];
+        private int depth = 0;
+        private Object next;
+
+        private ValueIterator(Object root) {
+            levels[0] = root == null ? Collections.emptyIterator() : Collections.singleton(root).iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && depth >= 0) {
+                Iterator<?> iterator = levels[depth];
+                if (!iterator.hasNext()) {
+                    depth--;
+                    continue;
+                }
+                Object value = iterator.next();
+                if (value == null) {
+                    continue;
+                }
+                if (depth == steps.length) {
+                    next = value;
+                } else {
+                    levels[depth + 1] = steps[depth].children(value);
+                    depth++;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object result = next;
+            next = null;
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,371 @@
+package org.summerframework.core.model.field;
+
+import org.springframework.util.Assert;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The compact binary codec of {@link FieldPath}s used for cache keys and for transferring paths between services
+ * without re-parsing their String representations. An encoded path starts with the number of its elements followed by
+ * the elements, all the numbers are unsigned variable length integers (7 bits per byte, the least significant group
+ * first). Each element starts with a header that holds the kind of the element in its two lowest bits:
+ * <ul>
+ * <li>an index, the rest of the header is the index</li>
+ * <li>a dictionary name, the rest of the header is the position of the name in the dictionary</li>
+ * <li>a literal name, the rest of the header is the number of the name chars followed by the chars</li>
+ * <li>the wildcard, the rest of the header is zero</li>
+ * </ul>
+ * The dictionary is a list of well known field names shared by both the encoding and the decoding side, the names
+ * that are not in the dictionary are encoded as literals. The codec is immutable and thread safe.
+ */
+public class FieldPathCodec {
+    private static final int INDEX = 0, NAME = 1, LITERAL = 2, ANY = 3;
+    private static final int KIND_BITS = 2, KIND_MASK = 3;
+
+    private final PathElement<?>[] dictionary;
+    private final Map<String, Integer> ids;
+
+    /**
+     * Creates a codec with the given dictionary of well known field names.
+     *
+     * @param names the optional dictionary, the same names in the same order must be used by the decoding side
+     */
+    public FieldPathCodec(String... names) {
+        this.dictionary = new PathElement<?>[names.length];
+        this.ids = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            PathElement<?> element = FieldPath.element(names[i]);
+            Assert.isTrue(element != PathElement.ANY_FIELD, "The wildcard must not be in the dictionary!");
+            Assert.isTrue(ids.put(names[i], i) == null, "The '" + names[i] + "' name is in the dictionary twice!");
+            dictionary[i] = element;
+        }
+    }
+
+    /**
+     * Returns the number of bytes the given path is encoded to.
+     *
+     * @param path the required path
+     */
+    public int encodedSize(FieldPath path) {
+        int result = varIntSize(path.length());
+        for (int i = 0, length = path.length(); i < length; i++) {
+            PathElement<?> element = path.elementAt(i);
+            long header = header(element);
+            result += varIntSize(header);
+            if ((header & KIND_MASK) == LITERAL) {
+                String name = element.value().toString();
+                for (int c = 0; c < name.length(); c++) {
+                    result += varIntSize(name.charAt(c));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Encodes the given path to a new byte array.
+     *
+     * @param path the required path
+     */
+    public byte[] encode(FieldPath path) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(path));
+        encode(path, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Encodes the given path to the given buffer starting at its current position.
+     *
+     * @param path   the required path
+     * @param buffer the buffer with at least {@link #encodedSize(FieldPath)} remaining bytes
+     * @throws java.nio.BufferOverflowException If there is not enough space in the buffer.
+     */
+    public void encode(FieldPath path, ByteBuffer buffer) {
+        writeVarInt(buffer, path.length());
+        for (int i = 0, length = path.length(); i < length; i++) {
+            PathElement<?> element = path.elementAt(i);
+            long header = header(element);
+            writeVarInt(buffer, header);
+            if ((header & KIND_MASK) == LITERAL) {
+                String name = element.value().toString();
+                for (int c = 0; c < name.length(); c++) {
+                    writeVarInt(buffer, name.charAt(c));
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes the given path to the given output.
+     *
+     * @param path the required path
+     * @param out  the required output
+     */
+    public void encode(FieldPath path, DataOutput out) throws IOException {
+        writeVarInt(out, path.length());
+        for (int i = 0, length = path.length(); i < length; i++) {
+            PathElement<?> element = path.elementAt(i);
+            long header = header(element);
+            writeVarInt(out, header);
+            if ((header & KIND_MASK) == LITERAL) {
+                String name = element.value().toString();
+                for (int c = 0; c < name.length(); c++) {
+                    writeVarInt(out, name.charAt(c));
+                }
+            }
+        }
+    }
+
+    private long header(PathElement<?> element) {
+        if (element == PathElement.ANY_FIELD) {
+            return ANY;
+        }
+        int index = element.index();
+        if (index >= 0) {
+            return (long) index << KIND_BITS | INDEX;
+        }
+        String name = element.value().toString();
+        Integer id = ids.get(name);
+        if (id != null) {
+            return (long) id << KIND_BITS | NAME;
+        }
+        return (long) name.length() << KIND_BITS | LITERAL;
+    }
+
+    /**
+     * Decodes a path from the given buffer starting at its current position, the position is moved after the path.
+     *
+     * @param buffer the required buffer
+     * @throws FieldPathException If the buffer does not contain a valid path.
+     */
+    public FieldPath decode(ByteBuffer buffer) {
+        try {
+            return decode(buffer::get, buffer.remaining());
+        } catch (BufferUnderflowException e) {
+            throw malformed("the path is truncated", e);
+        }
+    }
+
+    /**
+     * Decodes a path from the given input.
+     *
+     * @param in the required input
+     * @throws FieldPathException If the input does not contain a valid path.
+     */
+    public FieldPath decode(DataInput in) throws IOException {
+        try {
+            return decode(() -> {
+                try {
+                    return in.readByte();
+                } catch (EOFException e) {
+                    throw malformed("the path is truncated", e);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, Integer.MAX_VALUE);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // the sizes read from the untrusted source are bounded by the limit, each element and char takes at least a byte
+    private FieldPath decode(ByteSource source, int limit) {
+        int length = toInt(readVarInt(source));
+        if (length == 0) {
+            throw malformed("the path has no elements");
+        }
+        if (length > limit) {
+            throw malformed("the " + length + " elements exceed the " + limit + " bytes");
+        }
+        // the elements grow as they are read, so a forged length of an endless input doesn't allocate it at once
+        PathElement<?>[] elements = new PathElement<?>[Math.min(length, 16)];
+        for (int i = 0; i < length; i++) {
+            if (i == elements.length) {
+                elements = Arrays.copyOf(elements, (int) Math.min(length, i * 2L));
+            }
+            long header = readVarInt(source);
+            int value = toInt(header >>> KIND_BITS);
+            if ((header & KIND_MASK) == LITERAL) {
+                if (value > limit) {
+                    throw malformed("the " + value + " chars exceed the " + limit + " bytes");
+                }
+                StringBuilder name = new StringBuilder(Math.min(value, 64));
+                for (int c = 0; c < value; c++) {
+                    name.append(toChar(readVarInt(source)));
+                }
+                try {
+                    elements[i] = FieldPath.element(name.toString());
+                } catch (IllegalArgumentException e) {
+                    throw malformed("the '" + name + "' name is invalid", e);
+                }
+            } else {
+                elements[i] = element(header, value);
+            }
+        }
+        return FieldPath.wrap(elements);
+    }
+
+    private PathElement<?> element(long header, int value) {
+        switch ((int) (header & KIND_MASK)) {
+            case INDEX:
+                return FieldPath.element(value);
+            case NAME:
+                if (value >= dictionary.length) {
+                    throw malformed("the " + value + " name is not in the dictionary");
+                }
+                return dictionary[value];
+            default:
+                return PathElement.ANY_FIELD;
+        }
+    }
+
+    /**
+     * Returns true if the path encoded in the given buffer at its current position is equal to the given path. The
+     * encoded path is compared element by element without being decoded and the buffer position is not changed.
+     *
+     * @param buffer the required buffer
+     * @param path   the optional path to compare
+     * @throws FieldPathException If the buffer does not contain a valid path.
+     */
+    public boolean isEqual(ByteBuffer buffer, FieldPath path) {
+        if (path == null) {
+            return false;
+        }
+        int position = buffer.position();
+        long length = readVarInt(buffer, position);
+        position += varIntSize(length);
+        if (length != path.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            PathElement<?> element = path.elementAt(i);
+            long header = readVarInt(buffer, position);
+            position += varIntSize(header);
+            long value = header >>> KIND_BITS;
+            switch ((int) (header & KIND_MASK)) {
+                case INDEX:
+                    if (element.index() != value) {
+                        return false;
+                    }
+                    break;
+                case NAME:
+                    if (value >= dictionary.length) {
+                        throw malformed("the " + value + " name is not in the dictionary");
+                    }
+                    if (!dictionary[(int) value].equals(element)) {
+                        return false;
+                    }
+                    break;
+                case LITERAL:
+                    if (element == PathElement.ANY_FIELD || element.index() >= 0) {
+                        return false;
+                    }
+                    String name = element.value().toString();
+                    if (name.length() != value) {
+                        return false;
+                    }
+                    for (int c = 0; c < value; c++) {
+                        long ch = readVarInt(buffer, position);
+                        position += varIntSize(ch);
+                        if (name.charAt(c) != ch) {
+                            return false;
+                        }
+                    }
+                    break;
+                default:
+                    if (element != PathElement.ANY_FIELD) {
+                        return false;
+                    }
+            }
+        }
+        return true;
+    }
+
+    private static int varIntSize(long value) {
+        int result = 1;
+        while ((value >>>= 7) != 0) {
+            result++;
+        }
+        return result;
+    }
+
+    private static void writeVarInt(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static void writeVarInt(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarInt(ByteSource source) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = source.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw malformed("a variable length integer is too long");
+    }
+
+    private static long readVarInt(ByteBuffer buffer, int position) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= buffer.limit()) {
+                throw malformed("the path is truncated");
+            }
+            byte b = buffer.get(position++);
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw malformed("a variable length integer is too long");
+    }
+
+    private static int toInt(long value) {
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw malformed("the " + value + " value is out of range");
+        }
+        return (int) value;
+    }
+
+    private static char toChar(long value) {
+        if (value < 0 || value > Character.MAX_VALUE) {
+            throw malformed("the " + value + " char is out of range");
+        }
+        return (char) value;
+    }
+
+    private static FieldPathException malformed(String reason) {
+        return new FieldPathException("field.path.malformed", "Unable to decode a field path, " + reason + "!");
+    }
+
+    private static FieldPathException malformed(String reason, Exception cause) {
+        return new FieldPathException("field.path.malformed", "Unable to decode a field path, " + reason + "!", cause);
+    }
+
+    // the source of the encoded bytes, so the buffers and the inputs are decoded by the same code
+    private interface ByteSource {
+        byte readByte();
+    }
+
+}
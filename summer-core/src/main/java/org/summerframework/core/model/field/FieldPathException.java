@@ -11,4 +11,8 @@ public class FieldPathException extends LocalizedException {
         super(code, defaultTemplate);
     }
 
+    public FieldPathException(String code, String defaultTemplate, Exception cause) {
+        super(code, defaultTemplate, cause, null);
+    }
+
 }
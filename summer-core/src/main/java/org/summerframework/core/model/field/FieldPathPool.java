@@ -0,0 +1,135 @@
+package org.summerframework.core.model.field;
+
+import org.springframework.util.Assert;
+import org.summerframework.util.StringUtils;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * The bounded and concurrent pool of canonical {@link FieldPath} instances. The pool maps both the String
+ * representations and the paths themselves to shared instances, so a frequently used path is parsed only once and any
+ * equal path may be replaced by the very same object. The pool never grows over its maximum size, the least recently
+ * referenced paths are evicted using the CLOCK (second chance) algorithm instead. Any path may be evicted from the pool
+ * at any time, so callers must still compare paths by {@link FieldPath#equals(Object)} and never by references.
+ */
+public class FieldPathPool {
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    /**
+     * The default pool used by the {@link FieldPath} factory and navigation methods.
+     */
+    public static final FieldPathPool DEFAULT = new FieldPathPool(DEFAULT_MAX_SIZE);
+
+    private final int maxSize;
+    private final ClockMap<String, FieldPath> texts;
+    private final ClockMap<FieldPath, FieldPath> paths;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a pool that keeps at most the given number of String and path mappings each.
+     *
+     * @param maxSize the maximum number of pooled mappings, must be positive
+     */
+    public FieldPathPool(int maxSize) {
+        Assert.isTrue(maxSize > 0, "The maximum size of the field path pool must be positive!");
+        this.maxSize = maxSize;
+        this.texts = new ClockMap<>(maxSize);
+        this.paths = new ClockMap<>(maxSize);
+    }
+
+    /**
+     * Returns the canonical path of the given String representation. The String is parsed only if it is not pooled
+     * yet. It returns null if empty or no path is given at all.
+     *
+     * @param text the optional path, see {@link FieldPath#valueOf(String)}
+     */
+    public FieldPath valueOf(String text) {
+        if (StringUtils.isEmpty(text)) {
+            return null;
+        }
+        // only the lookup of the text is counted, the parsed path is a part of it
+        return lookup(texts, text, key -> lookup(paths, FieldPath.parse(key), Function.identity(), false), true);
+    }
+
+    /**
+     * Returns the canonical instance of the given path, that is either the pooled path equal to the given one or the
+     * given path itself which becomes the pooled one.
+     *
+     * @param path the optional path, it returns null if no path is given
+     */
+    public FieldPath canonical(FieldPath path) {
+        if (path == null) {
+            return null;
+        }
+        return lookup(paths, path, Function.identity(), true);
+    }
+
+    private <K> FieldPath lookup(ClockMap<K, FieldPath> map, K key, Function<K, FieldPath> factory, boolean counted) {
+        FieldPath result = map.get(key);
+        if (result != null) {
+            if (counted) {
+                hits.increment();
+            }
+            return result;
+        }
+        if (counted) {
+            misses.increment();
+        }
+        result = factory.apply(key);
+        FieldPath previous = map.putIfAbsent(key, result);
+        return previous == null ? result : previous;
+    }
+
+    /**
+     * Removes all the pooled paths, the statistics counters are kept.
+     */
+    public void clear() {
+        texts.clear();
+        paths.clear();
+    }
+
+    /**
+     * Returns the maximum number of pooled String and path mappings each.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of the pooled canonical paths.
+     */
+    public int size() {
+        return paths.size();
+    }
+
+    /**
+     * Returns the number of lookups that have been answered by an already pooled path. A {@link #valueOf(String)} is
+     * a single lookup, even if its parsed path is pooled too.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that have created a new pooled path.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of mappings evicted from this pool so far.
+     */
+    public long getEvictionCount() {
+        return texts.getEvictionCount() + paths.getEvictionCount();
+    }
+
+    @Override
+    public String toString() {
+        return "FieldPathPool{size=" + size() + ", maxSize=" + maxSize + ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "}";
+    }
+
+}
@@ -0,0 +1,205 @@
+package org.summerframework.core.model.field;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The trie of {@link FieldPath} patterns keyed by the {@link PathElement}s. Many patterns, including the {@link
+ * PathElement#ANY_FIELD wildcard} ones, are compiled into a single tree, so all the values matching a given path are
+ * found in a single walk that depends on the depth of the path rather than on the number of patterns. It is useful
+ * for evaluating a lot of projection or permission rules per document field.
+ * <p>
+ * The trie is not thread safe while being modified, but it may be shared by any number of threads once it has been
+ * built and safely published.
+ *
+ * @param <V> the type of the values associated with the patterns
+ */
+public class FieldPathTrie<V> {
+    private final Node<V> root = new Node<>();
+    private int size;
+
+    /**
+     * Associates the given value with the given pattern. A pattern may be associated with any number of values.
+     *
+     * @param pattern the required pattern, it may contain wildcards
+     * @param value   the value to associate with the pattern
+     */
+    public void put(FieldPath pattern, V value) {
+        Assert.notNull(pattern, "Unable to add a value to the trie, no pattern is given!");
+        Node<V> node = root;
+        for (PathElement<?> element : pattern) {
+            node = node.child(element);
+        }
+        if (node.values == null) {
+            node.values = new ArrayList<>(2);
+        }
+        node.values.add(value);
+        size++;
+    }
+
+    /**
+     * Removes the association of the given value with the given pattern. It returns true if there was such an
+     * association.
+     *
+     * @param pattern the optional pattern
+     * @param value   the value associated with the pattern
+     */
+    public boolean remove(FieldPath pattern, V value) {
+        Node<V> node = find(pattern);
+        if (node == null || node.values == null || !node.values.remove(value)) {
+            return false;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the values associated with exactly the given pattern, no wildcard matching is applied. It never returns
+     * null.
+     *
+     * @param pattern the optional pattern
+     */
+    public List<V> get(FieldPath pattern) {
+        Node<V> node = find(pattern);
+        if (node == null || node.values == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(node.values);
+    }
+
+    private Node<V> find(FieldPath pattern) {
+        if (pattern == null) {
+            return null;
+        }
+        Node<V> node = root;
+        for (int i = 0, length = pattern.length(); i < length && node != null; i++) {
+            PathElement<?> element = pattern.elementAt(i);
+            node = element == PathElement.ANY_FIELD ? node.any : node.children.get(element);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the values of all the patterns with the same length as the given path that {@link
+     * FieldPath#matches(FieldPath) match} the path. It never returns null.
+     *
+     * @param path the optional path to match
+     */
+    public List<V> match(FieldPath path) {
+        List<V> result = new ArrayList<>();
+        match(path, result::add);
+        return result;
+    }
+
+    /**
+     * Passes the values of all the patterns with the same length as the given path that match the path to the given
+     * consumer.
+     *
+     * @param path     the optional path to match
+     * @param consumer the required consumer of the matching values
+     */
+    public void match(FieldPath path, Consumer<? super V> consumer) {
+        if (path != null) {
+            walk(root, path, 0, consumer);
+        }
+    }
+
+    /**
+     * Returns the values of all the patterns the given path {@link FieldPath#startsWith(FieldPath) starts with}, that
+     * is the patterns matching the path itself or any of its parents. The values of the shorter patterns come first, the
+     * patterns of the same length have the concrete elements before the wildcards. It never returns null.
+     *
+     * @param path the optional path to match
+     */
+    public List<V> matchPrefixes(FieldPath path) {
+        List<V> result = new ArrayList<>();
+        matchPrefixes(path, result::add);
+        return result;
+    }
+
+    /**
+     * Passes the values of all the patterns the given path starts with to the given consumer.
+     *
+     * @param path     the optional path to match
+     * @param consumer the required consumer of the matching values
+     */
+    public void matchPrefixes(FieldPath path, Consumer<? super V> consumer) {
+        if (path == null) {
+            return;
+        }
+        // the nodes are matched level by level, so the values of the shorter patterns come first
+        List<Node<V>> nodes = Collections.singletonList(root);
+        for (int depth = 0, length = path.length(); depth < length && !nodes.isEmpty(); depth++) {
+            List<Node<V>> children = new ArrayList<>(nodes.size() + 1);
+            for (Node<V> node : nodes) {
+                node.match(path.elementAt(depth), children::add);
+            }
+            for (Node<V> child : children) {
+                if (child.values != null) {
+                    child.values.forEach(consumer);
+                }
+            }
+            nodes = children;
+        }
+    }
+
+    private void walk(Node<V> node, FieldPath path, int depth, Consumer<? super V> consumer) {
+        if (depth == path.length()) {
+            if (node.values != null) {
+                node.values.forEach(consumer);
+            }
+            return;
+        }
+        node.match(path.elementAt(depth), child -> walk(child, path, depth + 1, consumer));
+    }
+
+    /**
+     * Returns the number of the pattern and value associations.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static class Node<V> {
+        private final Map<PathElement<?>, Node<V>> children = new HashMap<>(4);
+        private Node<V> any;
+        private List<V> values;
+
+        private Node<V> child(PathElement<?> element) {
+            if (element == PathElement.ANY_FIELD) {
+                if (any == null) {
+                    any = new Node<>();
+                }
+                return any;
+            }
+            return children.computeIfAbsent(element, key -> new Node<>());
+        }
+
+        // passes the children matching the given path element, the concrete ones before the wildcard
+        private void match(PathElement<?> element, Consumer<Node<V>> consumer) {
+            if (element == PathElement.ANY_FIELD) {
+                // a wildcard in the path matches any pattern element
+                children.values().forEach(consumer);
+            } else {
+                Node<V> child = children.get(element);
+                if (child != null) {
+                    consumer.accept(child);
+                }
+            }
+            if (any != null) {
+                consumer.accept(any);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,255 @@
+package org.summerframework.core.model.field;
+
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The depth first walker that enumerates all the leaf values of nested Map and List documents together with their
+ * paths. The path of a visited value is given as a reused and mutable {@link Cursor}, an immutable {@link FieldPath}
+ * snapshot is created only when the visitor asks for it, so even huge documents are walked without creating a path
+ * per value. The walk may be terminated early by the visitor and the subtrees may be pruned by a predicate testing
+ * the cursor, for example by {@link Cursor#startsWith(FieldPath)}.
+ * <p>
+ * A leaf value is any value that is neither a Map nor a List, empty Maps and Lists have no leaves and so they are not
+ * visited. The Map keys that are not valid field names, like the empty one, the wildcard or a key with a dot, are
+ * walked too, but no path element or path can be created for them. The walker is immutable and thread safe, the
+ * cursors are never shared by concurrent walks.
+ */
+public class FieldPathWalker {
+    private final Predicate<? super Cursor> filter;
+
+    /**
+     * Creates a walker visiting all the leaf values.
+     */
+    public FieldPathWalker() {
+        this(cursor -> true);
+    }
+
+    /**
+     * Creates a walker that visits only the values and subtrees accepted by the given filter.
+     *
+     * @param filter the required filter of the locations, it is tested before a value is visited or a Map or a List
+     *               is descended into and it must not keep the given cursor
+     */
+    public FieldPathWalker(Predicate<? super Cursor> filter) {
+        Assert.notNull(filter, "Unable to create a walker, no filter is given!");
+        this.filter = filter;
+    }
+
+    /**
+     * Walks the given document and passes all its leaf values to the given visitor. A root value that is neither a Map
+     * nor a List is visited at the root cursor with no path.
+     *
+     * @param document the optional document
+     * @param visitor  the required visitor of the leaf values
+     * @return false if the walk has been terminated by the visitor, true otherwise
+     */
+    public boolean walk(Object document, Visitor visitor) {
+        Assert.notNull(visitor, "Unable to walk a document, no visitor is given!");
+        return walk(document, new Cursor(), visitor);
+    }
+
+    private boolean walk(Object value, Cursor cursor, Visitor visitor) {
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                cursor.push(String.valueOf(entry.getKey()), -1);
+                boolean proceed = !filter.test(cursor) || walk(entry.getValue(), cursor, visitor);
+                cursor.pop();
+                if (!proceed) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            for (int i = 0, size = list.size(); i < size; i++) {
+                cursor.push(null, i);
+                boolean proceed = !filter.test(cursor) || walk(list.get(i), cursor, visitor);
+                cursor.pop();
+                if (!proceed) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return visitor.visit(cursor, value);
+    }
+
+    /**
+     * The visitor of the leaf values.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+
+        /**
+         * Visits the value at the location of the given cursor and returns true to continue or false to terminate
+         * the walk. The cursor is reused for the next values, use {@link Cursor#toPath()} to keep the path.
+         *
+         * @param cursor the location of the value
+         * @param value  the optional value
+         */
+        boolean visit(Cursor cursor, Object value);
+
+    }
+
+    /**
+     * The mutable location of a walk. The path elements are kept as field names and indexes and the {@link
+     * PathElement}s are created only on demand.
+     */
+    public static final class Cursor {
+        private String[] fields = new String[16];
+        private int[] indexes = new int[16];
+        private int depth = 0;
+
+        private Cursor() {
+        }
+
+        private void push(String field, int index) {
+            if (depth == fields.length) {
+                fields = Arrays.copyOf(fields, depth << 1);
+                indexes = Arrays.copyOf(indexes, depth << 1);
+            }
+            fields[depth] = field;
+            indexes[depth] = index;
+            depth++;
+        }
+
+        private void pop() {
+            fields[--depth] = null;
+        }
+
+        /**
+         * Returns the number of the path elements, it is 0 for the root.
+         */
+        public int depth() {
+            return depth;
+        }
+
+        /**
+         * Returns the field name of the last element or null if it is an index or this is the root.
+         */
+        public String field() {
+            return depth == 0 ? null : fields[depth - 1];
+        }
+
+        /**
+         * Returns the index of the last element or -1 if it is a field or this is the root.
+         */
+        public int index() {
+            return depth == 0 ? -1 : indexes[depth - 1];
+        }
+
+        /**
+         * Creates the path element at the given level.
+         *
+         * @param level the level from 0 to {@link #depth()} exclusive
+         * @throws FieldPathException If the key at the level is not a valid field name.
+         */
+        public PathElement<?> elementAt(int level) {
+            if (level < 0 || level >= depth) {
+                throw new IndexOutOfBoundsException("The " + level + " level is out of the cursor with the depth of "
+                        + depth + "!");
+            }
+            return element(level);
+        }
+
+        private PathElement<?> element(int level) {
+            String field = fields[level];
+            if (field == null) {
+                return FieldPath.element(indexes[level]);
+            }
+            // the key would become the wildcard instead of the actual field
+            if ("*".equals(field)) {
+                throw invalidKey(field, null);
+            }
+            try {
+                return FieldPath.element(field);
+            } catch (IllegalArgumentException e) {
+                throw invalidKey(field, e);
+            }
+        }
+
+        private FieldPathException invalidKey(String field, Exception cause) {
+            return new FieldPathException("field.path.key", "Unable to create the path of the '" + this
+                    + "' value, the '" + field + "' key is not a valid field name!", cause);
+        }
+
+        /**
+         * Returns true if the path of this cursor starts with the given path, the wildcards of the given path match
+         * any element. No path is created to test it.
+         *
+         * @param prefix the optional prefix
+         */
+        public boolean startsWith(FieldPath prefix) {
+            if (prefix == null || prefix.length() > depth) {
+                return false;
+            }
+            for (int i = 0, length = prefix.length(); i < length; i++) {
+                if (!matches(i, prefix.elementAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns true if the path of this cursor has the same length as the given pattern and the pattern matches it.
+         * No path is created to test it.
+         *
+         * @param pattern the optional pattern
+         */
+        public boolean matches(FieldPath pattern) {
+            return pattern != null && pattern.length() == depth && startsWith(pattern);
+        }
+
+        private boolean matches(int level, PathElement<?> element) {
+            if (element == PathElement.ANY_FIELD) {
+                return true;
+            }
+            String field = fields[level];
+            if (field == null) {
+                return element.index() == indexes[level];
+            }
+            return element.index() < 0 && field.equals(element.value());
+        }
+
+        /**
+         * Returns the immutable snapshot of the path of this cursor or null if this is the root.
+         *
+         * @throws FieldPathException If a key on the path is not a valid field name.
+         */
+        public FieldPath toPath() {
+            if (depth == 0) {
+                return null;
+            }
+            PathElement<?>[] elements = new PathElement<?>[depth];
+            for (int i = 0; i < depth; i++) {
+                elements[i] = element(i);
+            }
+            return FieldPath.wrap(elements);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(depth * 8);
+            for (int i = 0; i < depth; i++) {
+                String field = fields[i];
+                if (field == null) {
+                    sb.append('[').append(indexes[i]).append(']');
+                } else {
+                    if (sb.length() > 0) {
+                        sb.append('.');
+                    }
+                    sb.append(field);
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+package org.summerframework.core.model.field;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The projection of nested Map and List documents built from a set of included and a set of excluded {@link
+ * FieldPath}s. All the paths, including the {@link PathElement#ANY_FIELD wildcard} ones, are merged into a single
+ * tree, so a document is projected in a single traversal regardless of the number of the paths.
+ * <p>
+ * If there is no included path, the whole document is included. An included path retains its value with all the
+ * nested values, an excluded path removes its value, the excluded paths take precedence over the included ones. Only
+ * the Maps and Lists on the paths leading to the excluded or partially included values are copied, all the other
+ * retained values are shared with the source document. The Lists are compacted, so the indexes of the retained items
+ * may change. The projection is immutable and thread safe.
+ */
+public class FieldProjection {
+    private static final Node[] NO_NODES = new Node[0];
+    // the marker of the values that are not retained
+    private static final Object DROPPED = new Object();
+
+    private final Node root = new Node();
+
+    /**
+     * Creates a projection from the given included and excluded paths.
+     *
+     * @param includes the optional included paths, all the fields are included if none is given
+     * @param excludes the optional excluded paths
+     */
+    public FieldProjection(Collection<FieldPath> includes, Collection<FieldPath> excludes) {
+        if (includes == null || includes.isEmpty()) {
+            root.include = true;
+        } else {
+            for (FieldPath path : includes) {
+                add(path).include = true;
+            }
+        }
+        if (excludes != null) {
+            for (FieldPath path : excludes) {
+                add(path).exclude = true;
+            }
+        }
+    }
+
+    /**
+     * Creates a projection that retains only the given paths.
+     *
+     * @param paths the included paths
+     */
+    public static FieldProjection including(FieldPath... paths) {
+        return new FieldProjection(Arrays.asList(paths), null);
+    }
+
+    /**
+     * Creates a projection that retains all but the given paths.
+     *
+     * @param paths the excluded paths
+     */
+    public static FieldProjection excluding(FieldPath... paths) {
+        return new FieldProjection(null, Arrays.asList(paths));
+    }
+
+    private Node add(FieldPath path) {
+        Node node = root;
+        for (PathElement<?> element : path) {
+            if (element == PathElement.ANY_FIELD) {
+                if (node.any == null) {
+                    node.any = new Node();
+                }
+                node = node.any;
+            } else if (element.index() >= 0) {
+                if (node.indexes == null) {
+                    node.indexes = new HashMap<>(4);
+                }
+                node = node.indexes.computeIfAbsent(element.index(), key -> new Node());
+            } else {
+                if (node.fields == null) {
+                    node.fields = new HashMap<>(8);
+                }
+                node = node.fields.computeIfAbsent(element.value().toString(), key -> new Node());
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Returns the projection of the given document. It returns null if nothing of the document is retained.
+     *
+     * @param document the optional document, that is a Map or a List of nested Maps, Lists and other values
+     */
+    public Object project(Object document) {
+        Object result = project(document, new Node[]{root}, false);
+        return result == DROPPED ? null : result;
+    }
+
+    /**
+     * Returns the lazy stream of the projections of the given documents.
+     *
+     * @param documents the required stream of documents
+     * @see #project(Object)
+     */
+    public Stream<Object> project(Stream<?> documents) {
+        return documents.map(this::project);
+    }
+
+    /**
+     * Projects the value at a location matched by the given nodes.
+     */
+    private Object project(Object value, Node[] nodes, boolean included) {
+        boolean descend = false;
+        for (Node node : nodes) {
+            if (node.exclude) {
+                return DROPPED;
+            }
+            included |= node.include;
+            descend |= node.hasChildren();
+        }
+        if (!descend || !(value instanceof Map || value instanceof List)) {
+            // there is no more path below, the whole value is either retained or not
+            return included ? value : DROPPED;
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Map<Object, Object> result = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Node[] children = fields(nodes, String.valueOf(entry.getKey()));
+                Object projected = projectChild(entry.getValue(), children, included);
+                if (projected != DROPPED) {
+                    result.put(entry.getKey(), projected);
+                }
+            }
+            return result.isEmpty() && !included ? DROPPED : result;
+        }
+        List<?> list = (List<?>) value;
+        List<Object> result = new ArrayList<>(list.size());
+        for (int i = 0, size = list.size(); i < size; i++) {
+            Object projected = projectChild(list.get(i), indexes(nodes, i), included);
+            if (projected != DROPPED) {
+                result.add(projected);
+            }
+        }
+        return result.isEmpty() && !included ? DROPPED : result;
+    }
+
+    private Object projectChild(Object value, Node[] nodes, boolean included) {
+        if (nodes.length == 0) {
+            // no path leads to the child
+            return included ? value : DROPPED;
+        }
+        return project(value, nodes, included);
+    }
+
+    private static Node[] fields(Node[] nodes, String name) {
+        Node[] result = NO_NODES;
+        for (Node node : nodes) {
+            if (node.fields != null) {
+                result = append(result, node.fields.get(name));
+            }
+            result = append(result, node.any);
+        }
+        return result;
+    }
+
+    private static Node[] indexes(Node[] nodes, int index) {
+        Node[] result = NO_NODES;
+        for (Node node : nodes) {
+            if (node.indexes != null) {
+                result = append(result, node.indexes.get(index));
+            }
+            result = append(result, node.any);
+        }
+        return result;
+    }
+
+    private static Node[] append(Node[] nodes, Node node) {
+        if (node == null) {
+            return nodes;
+        }
+        Node[] result = Arrays.copyOf(nodes, nodes.length + 1);
+        result[nodes.length] = node;
+        return result;
+    }
+
+    private static class Node {
+        private Map<String, Node> fields;
+        private Map<Integer, Node> indexes;
+        private Node any;
+        private boolean include;
+        private boolean exclude;
+
+        private boolean hasChildren() {
+            return fields != null || indexes != null || any != null;
+        }
+    }
+
+}
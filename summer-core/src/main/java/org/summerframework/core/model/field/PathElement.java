@@ -10,6 +10,14 @@ public interface PathElement<T> {
      */
     T value();
 
+    /**
+     * Returns the index of an indexed element or -1 for a field element or the wildcard. Unlike the {@link #value()}
+     * it never boxes the index.
+     */
+    default int index() {
+        return -1;
+    }
+
     boolean matches(PathElement other);
 
     void printTo(StringBuilder builder);
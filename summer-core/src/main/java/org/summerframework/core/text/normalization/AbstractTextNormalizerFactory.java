@@ -2,9 +2,25 @@ package org.summerframework.core.text.normalization;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Abstract base class for {@link TextNormalizerFactory}(ies).
@@ -12,28 +28,114 @@ import java.util.Map;
 abstract class AbstractTextNormalizerFactory<T extends TextNormalizer> implements TextNormalizerFactory {
     private static final Logger log = LoggerFactory.getLogger(AbstractTextNormalizerFactory.class);
 
-    private Map<String, TextNormalizer> normalizers = new HashMap<>();
+    // the key of the root normalizer as the concurrent map doesn't permit the null key, it differs from any name
+    private static final Object ROOT = new Object();
+
+    private final ConcurrentMap<Object, TextNormalizer> normalizers = new ConcurrentHashMap<>();
 
     public TextNormalizer normalizer() {
         return normalizer(null);
     }
 
+    // creates the normalizer exactly once, so all the callers share the same normalizer and its tables
     public TextNormalizer normalizer(String name) {
-        TextNormalizer result = normalizers.get(name);
+        Object key = key(name);
+        TextNormalizer result = normalizers.get(key);
         if (result == null) {
-            result = createNormalizer(name);
-            normalizers.put(name, result);
+            result = normalizers.computeIfAbsent(key, k -> createNormalizer(name));
         }
         return result;
     }
 
+    private static Object key(String name) {
+        return name == null ? ROOT : name;
+    }
+
     protected abstract T createNormalizer(String name);
 
     public void register(TextNormalizer normalizer, String name) {
-        TextNormalizer previous = normalizers.put(name, normalizer);
+        Assert.notNull(normalizer, "Unable to register the normalizer of the '" + name + "', it is required!");
+        TextNormalizer previous = normalizers.put(key(name), normalizer);
         if (previous != null) {
             log.warn("The " + previous + " normalizer of the '" + name + "' has been replaced by a new one!");
         }
     }
 
+    @Override
+    public TextNormalizer unregister(String name) {
+        return normalizers.remove(key(name));
+    }
+
+    @Override
+    public Map<String, Map<Locale, Long>> getUsages() {
+        Map<String, Map<Locale, Long>> result = new HashMap<>();
+        for (Map.Entry<Object, TextNormalizer> normalizer : normalizers.entrySet()) {
+            String name = normalizer.getKey() == ROOT ? null : (String) normalizer.getKey();
+            result.put(name, normalizer.getValue().getUsages());
+        }
+        return result;
+    }
+
+    @Override
+    public void reload() {
+        for (TextNormalizer normalizer : normalizers.values()) {
+            normalizer.reload();
+        }
+    }
+
+    @Override
+    public void reload(Collection<Path> files) {
+        for (TextNormalizer normalizer : normalizers.values()) {
+            normalizer.reload(files);
+        }
+    }
+
+    @Override
+    public int warmUp(int parallelism) {
+        Assert.isTrue(parallelism > 0, "Unable to warm up the normalizers, the parallelism must be positive!");
+        long time = System.currentTimeMillis();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        // the normalizers are created by this thread, only the tables are loaded in parallel
+        for (Map.Entry<String, Set<Locale>> tables : discoverTables().entrySet()) {
+            TextNormalizer normalizer = normalizer(tables.getKey());
+            for (Locale locale : tables.getValue()) {
+                tasks.add(() -> {
+                    normalizer.warmUp(locale);
+                    return null;
+                });
+            }
+        }
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("normalizer-warm-up-");
+        threadFactory.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()), threadFactory);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Unable to warm up the normalizers, the thread has been interrupted!", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to warm up the normalizers!", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        if (log.isInfoEnabled()) {
+            log.info("Loaded " + tasks.size() + " normalization tables in " + (System.currentTimeMillis() - time)
+                    + " ms");
+        }
+        return tasks.size();
+    }
+
+    /**
+     * Returns the locales of the tables to load by the names of their normalizers, the null locale stands for the
+     * default table. There are no tables to load by default.
+     */
+    protected Map<String, Set<Locale>> discoverTables() {
+        return Collections.emptyMap();
+    }
+
 }
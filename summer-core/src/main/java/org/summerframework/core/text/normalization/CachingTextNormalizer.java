@@ -0,0 +1,272 @@
+package org.summerframework.core.text.normalization;
+
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.util.Assert;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link TextNormalizer} decorator caching the normalized texts, so the often repeated short texts like category
+ * names or tags are normalized only once and all the callers share the same result. It decorates any normalizer, e.g.
+ * the one of the {@link CharNormalizerFactory} registered back to the factory under its own name.
+ * <p>
+ * The cache is bounded by the total weight of the cached entries, the least recently used ones are evicted by the
+ * CLOCK algorithm. The weight of an entry is the number of the chars of its text and result plus a fixed overhead of
+ * its objects, so the weight bounds the memory even for the shortest texts. The hits are lock free, only the misses
+ * take a lock to update the clock. The texts longer than the maximum length bypass the cache, as they rarely repeat. A
+ * result normalized while the cache is cleared, e.g. by a reload, isn't cached, so no result of the previous tables
+ * survives the reload.
+ * <p>
+ * The normalizer is thread safe.
+ */
+public class CachingTextNormalizer implements TextNormalizer {
+    public static final int DEFAULT_MAX_WEIGHT = 1024 * 1024;
+    public static final int DEFAULT_MAX_LENGTH = 64;
+    // the memory of the entry, key and map node objects and the String headers of an entry, in chars
+    static final int ENTRY_OVERHEAD = 64;
+
+    private final TextNormalizer normalizer;
+    private final long maxWeight;
+    private final int maxLength;
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    // the clock of the cached entries, the head is the hand
+    private final ArrayDeque<Entry> clock = new ArrayDeque<>();
+    private long weight;
+    // incremented on every clear, so a result normalized before the clear is never cached after it
+    private volatile long generation;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingTextNormalizer(TextNormalizer normalizer) {
+        this(normalizer, DEFAULT_MAX_WEIGHT, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Creates the caching normalizer.
+     *
+     * @param normalizer the required normalizer to cache the results of
+     * @param maxWeight  the maximum weight of all the cached entries, that is the number of the chars of the texts and
+     *                   their results plus the overhead of each entry
+     * @param maxLength  the maximum length of the cached texts, the longer ones bypass the cache
+     */
+    public CachingTextNormalizer(TextNormalizer normalizer, long maxWeight, int maxLength) {
+        Assert.notNull(normalizer, "Unable to create a caching normalizer, the normalizer is required!");
+        Assert.isTrue(maxWeight > 0, "Unable to create a caching normalizer, the max weight must be positive!");
+        Assert.isTrue(maxLength >= 0, "Unable to create a caching normalizer, the max length must not be negative!");
+        this.normalizer = normalizer;
+        this.maxWeight = maxWeight;
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public String normalize(CharSequence text) {
+        return normalize(text, LocaleContextHolder.getLocale());
+    }
+
+    @Override
+    public String normalize(CharSequence text, Locale locale) {
+        if (text.length() > maxLength) {
+            bypasses.increment();
+            return normalizer.normalize(text, locale);
+        }
+        String input = text.toString();
+        Key key = new Key(input, locale);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            // the flag is written only once, so the hits don't contend on it
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        long generation = this.generation;
+        String result = normalizer.normalize(input, locale);
+        Entry created = new Entry(key, result);
+        synchronized (clock) {
+            // the result may be normalized by the tables replaced meanwhile
+            if (generation != this.generation) {
+                return result;
+            }
+            Entry current = entries.putIfAbsent(key, created);
+            if (current != null) {
+                // another thread has been faster, its result is shared
+                return current.value;
+            }
+            clock.addLast(created);
+            weight += created.weight;
+            evict();
+        }
+        return result;
+    }
+
+    // evicts the entries until the cache fits, the referenced entries get the second chance
+    private void evict() {
+        while (weight > maxWeight) {
+            Entry entry = clock.pollFirst();
+            if (entry.referenced) {
+                entry.referenced = false;
+                clock.addLast(entry);
+                continue;
+            }
+            entries.remove(entry.key, entry);
+            weight -= entry.weight;
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public void warmUp(Locale locale) {
+        normalizer.warmUp(locale);
+    }
+
+    /**
+     * Returns the usages of the decorated normalizer, so only the normalizations missing the cache are counted.
+     */
+    @Override
+    public Map<Locale, Long> getUsages() {
+        return normalizer.getUsages();
+    }
+
+    /**
+     * Reloads the tables of the decorated normalizer and removes the results normalized by the previous tables.
+     */
+    @Override
+    public void reload() {
+        normalizer.reload();
+        clear();
+    }
+
+    /**
+     * Reloads the given tables of the decorated normalizer and removes all the cached results, as they are not tracked
+     * by their tables.
+     */
+    @Override
+    public void reload(Collection<Path> files) {
+        normalizer.reload(files);
+        clear();
+    }
+
+    /**
+     * Removes all the cached results, the statistics are kept.
+     */
+    public void clear() {
+        synchronized (clock) {
+            generation++;
+            for (Entry entry : clock) {
+                entries.remove(entry.key, entry);
+            }
+            clock.clear();
+            weight = 0;
+        }
+    }
+
+    /**
+     * Returns the decorated normalizer.
+     */
+    public TextNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * Returns the number of the cached results.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the weight of all the cached entries, that is the number of the chars of the texts and their results plus
+     * the overhead of each entry.
+     */
+    public long getWeight() {
+        synchronized (clock) {
+            return weight;
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of the texts that bypassed the cache for their length.
+     */
+    public long getBypasses() {
+        return bypasses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the ratio of the hits to all the cacheable normalizations or 0 if there was none.
+     */
+    public double getHitRate() {
+        long hits = this.hits.sum();
+        long total = hits + misses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "CachingTextNormalizer{" + normalizer + ", size=" + size() + ", hitRate=" + getHitRate() + "}";
+    }
+
+    private static final class Key {
+        private final String text;
+        private final Locale locale;
+        private final int hash;
+
+        private Key(String text, Locale locale) {
+            this.text = text;
+            this.locale = locale;
+            this.hash = 31 * text.hashCode() + Objects.hashCode(locale);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key that = (Key) o;
+            return hash == that.hash && text.equals(that.text) && Objects.equals(locale, that.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        private final Key key;
+        private final String value;
+        private final int weight;
+        private volatile boolean referenced;
+
+        private Entry(Key key, String value) {
+            this.key = key;
+            this.value = value;
+            // the unchanged result shares the chars of the text
+            this.weight = ENTRY_OVERHEAD + key.text.length() + (value == key.text ? 0 : value.length());
+        }
+    }
+
+}
@@ -3,22 +3,33 @@ package org.summerframework.core.text.normalization;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.i18n.LocaleContextHolder;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.summerframework.core.text.TextParsingException;
 import org.summerframework.core.text.parsing.AbstractResourceParser;
 import org.summerframework.util.StringUtils;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * A char normalizer is an utility class that is capable of converting characters to other characters using the fast
  * array of char tables.
+ * <p>
+ * In the code point mode, a surrogate pair is normalized as a whole by the sparse table of the supplementary code
+ * points, so an emoji is either mapped or dropped entirely and a lone surrogate is always dropped. The BMP chars are
+ * normalized by the same dense table in both modes.
  */
 public class CharNormalizer implements TextNormalizer {
     private static final Logger log = LoggerFactory.getLogger(CharNormalizer.class);
@@ -31,35 +42,71 @@ public class CharNormalizer implements TextNormalizer {
         }
     }
 
+    private static final CharTable ASCII_CHAR_TABLE = new CharTable(ASCII_TABLE, CodePointTable.EMPTY);
+    // the marker of the table resources that don't exist
+    private static final CharTable MISSING_TABLE = new CharTable(new char[0], CodePointTable.EMPTY);
+
     private final String location;
-    private final Map<Locale, char[]> tables = new HashMap<>();
-    private char[] defaultTable;
+    private final boolean codePoints;
+    // the tables are loaded once per locale, the loaded tables are read without locking
+    private final Map<Locale, LocaleTable<CharTable>> tables = new ConcurrentHashMap<>();
+    // the tables by their resource locations, so the locales sharing a table load it only once
+    private final Map<String, CharTable> resourceTables = new ConcurrentHashMap<>();
+    // the plain locations are on the classpath, the URL ones like file: are loaded from the URL
+    private final ResourceLoader resourceLoader = new DefaultResourceLoader();
+    private final Object defaultTableLock = new Object();
+    private volatile CharTable defaultTable;
 
     // the default (ASCII) normalizer
     public CharNormalizer() {
         this.location = "/META-INF/normalize/";
+        this.codePoints = false;
     }
 
     CharNormalizer(String location) {
+        this(location, false);
+    }
+
+    CharNormalizer(String location, boolean codePoints) {
         // normalize location
         StringUtils.cleanPath(location);
         if (!location.endsWith("/")) {
             location += "/";
         }
         this.location = location;
+        this.codePoints = codePoints;
+    }
+
+    /**
+     * Returns true if the surrogate pairs are normalized as the supplementary code points.
+     */
+    public boolean isCodePoints() {
+        return codePoints;
     }
 
-    private char[] getDefaultTable() {
-        if (defaultTable == null) {
-            // one shot table load
-            Resource resource = new ClassPathResource(location + "default.table");
-            defaultTable = loadTable(resource);
-            if (defaultTable == null) {
-                log.warn("Unable to load the default table from the '" + resource.getDescription() + "', using the ASCII table");
-                defaultTable = ASCII_TABLE;
+    private CharTable getDefaultTable() {
+        CharTable result = defaultTable;
+        if (result == null) {
+            synchronized (defaultTableLock) {
+                result = defaultTable;
+                if (result == null) {
+                    // one shot table load
+                    result = loadDefaultTable();
+                    defaultTable = result;
+                }
             }
         }
-        return defaultTable;
+        return result;
+    }
+
+    private CharTable loadDefaultTable() {
+        Resource resource = resourceLoader.getResource(location + "default.table");
+        CharTable result = loadTable(resource);
+        if (result == null) {
+            log.warn("Unable to load the default table from the '" + resource.getDescription() + "', using the ASCII table");
+            result = ASCII_CHAR_TABLE;
+        }
+        return result;
     }
 
     public String normalize(CharSequence text) {
@@ -67,51 +114,250 @@ public class CharNormalizer implements TextNormalizer {
     }
 
     public String normalize(CharSequence text, Locale locale) {
+        if (!StringUtils.hasLength(text)) {
+            return text.toString();
+        }
+        return normalize(text, use(locale));
+    }
+
+    @Override
+    public Function<CharSequence, String> bind(Locale locale) {
+        LocaleTable<CharTable> table = getLocaleTable(locale);
+        return text -> {
+            table.usages.increment();
+            return normalize(text, table.table);
+        };
+    }
+
+    private String normalize(CharSequence text, CharTable charTable) {
         if (!StringUtils.hasLength(text)) {
             return text.toString();
         }
         int length = text.length();
-        char[] table = getTable(locale);
-        StringBuilder result = new StringBuilder(length);
-        for (int i = 0; i < length; i++) {
-            int index = text.charAt(i);
+        char[] table = charTable.chars;
+        // the fast path, skip the chars that are mapped to themselves
+        int first = 0;
+        while (first < length && isRetained(text.charAt(first), table)) {
+            first++;
+        }
+        if (first == length) {
+            // nothing to change
+            return text.toString();
+        }
+        // the whole text is copied in bulk and then compacted in place
+        char[] result = new char[length];
+        getChars(text, result, length);
+        int count = first;
+        for (int i = first; i < length; i++) {
+            char index = result[i];
+            if (isRetained(index, table)) {
+                result[count++] = index;
+                continue;
+            }
+            if (codePoints && Character.isSurrogate(index)) {
+                // the mapped code point is never longer than the pair
+                int codePoint = codePointAt(result, i, length);
+                if (codePoint >= 0) {
+                    count = appendTo(codePoint, charTable.supplementary, result, count);
+                    i++;
+                }
+                continue;
+            }
             if (index >= table.length) {
                 if (log.isDebugEnabled()) {
-                    log.debug("The " + index + " is out of the table range");
+                    log.debug("The " + (int) index + " is out of the table range");
                 }
                 continue;
             }
             char mapped = table[index];
             if (mapped == 0) {
                 if (log.isTraceEnabled()) {
-                    log.trace("The '" + (char) index + "' is not mapped");
+                    log.trace("The '" + index + "' is not mapped");
+                }
+                continue;
+            }
+            result[count++] = mapped;
+        }
+        return new String(result, 0, count);
+    }
+
+    @Override
+    public void normalizeTo(CharSequence text, Appendable target, Locale locale) throws IOException {
+        CharTable charTable = use(locale);
+        char[] table = charTable.chars;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char value = text.charAt(i);
+            if (codePoints && Character.isSurrogate(value)) {
+                int codePoint = codePointAt(text, i, length);
+                if (codePoint >= 0) {
+                    int entry = charTable.supplementary.entry(codePoint);
+                    char[] pool = charTable.supplementary.pool();
+                    for (int c = StringTable.offset(entry), end = c + StringTable.length(entry); c < end; c++) {
+                        target.append(pool[c]);
+                    }
+                    i++;
                 }
                 continue;
             }
-            result.append(mapped);
+            char mapped = map(value, table);
+            if (mapped != 0) {
+                target.append(mapped);
+            }
+        }
+    }
+
+    @Override
+    public int normalizeTo(CharSequence text, int start, int end, char[] target, int offset, Locale locale) {
+        CharTable charTable = use(locale);
+        char[] table = charTable.chars;
+        int count = offset;
+        for (int i = start; i < end; i++) {
+            char value = text.charAt(i);
+            if (codePoints && Character.isSurrogate(value)) {
+                int codePoint = codePointAt(text, i, end);
+                if (codePoint >= 0) {
+                    count = appendTo(codePoint, charTable.supplementary, target, count);
+                    i++;
+                }
+                continue;
+            }
+            char mapped = map(value, table);
+            if (mapped != 0) {
+                target[count++] = mapped;
+            }
+        }
+        return count - offset;
+    }
+
+    @Override
+    public int normalizedHash(CharSequence text, Locale locale) {
+        CharTable charTable = use(locale);
+        char[] table = charTable.chars;
+        int result = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char value = text.charAt(i);
+            if (codePoints && Character.isSurrogate(value)) {
+                int codePoint = CodePointTable.codePointAt(text, i, length);
+                if (codePoint >= 0) {
+                    int entry = charTable.supplementary.entry(codePoint);
+                    char[] pool = charTable.supplementary.pool();
+                    for (int c = StringTable.offset(entry), end = c + StringTable.length(entry); c < end; c++) {
+                        result = 31 * result + pool[c];
+                    }
+                    i++;
+                }
+                continue;
+            }
+            if (value < table.length) {
+                char mapped = table[value];
+                if (mapped != 0) {
+                    result = 31 * result + mapped;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean normalizedEquals(CharSequence a, CharSequence b, Locale locale) {
+        CharTable table = use(locale);
+        return NormalizedChars.equals(new NormalizedText(a, table), new NormalizedText(b, table));
+    }
+
+    @Override
+    public int normalizedCompare(CharSequence a, CharSequence b, Locale locale) {
+        CharTable table = use(locale);
+        return NormalizedChars.compare(new NormalizedText(a, table), new NormalizedText(b, table));
+    }
+
+    private static boolean isRetained(char value, char[] table) {
+        return value < table.length && table[value] == value && value != 0;
+    }
+
+    // returns 0 if the value is not mapped
+    private static char map(char value, char[] table) {
+        if (value >= table.length) {
+            if (log.isDebugEnabled()) {
+                log.debug("The " + (int) value + " is out of the table range");
+            }
+            return 0;
+        }
+        char mapped = table[value];
+        if (mapped == 0 && log.isTraceEnabled()) {
+            log.trace("The '" + value + "' is not mapped");
+        }
+        return mapped;
+    }
+
+    // returns the supplementary code point of the pair at the given index or -1 for a lone surrogate
+    private static int codePointAt(CharSequence text, int index, int end) {
+        int result = CodePointTable.codePointAt(text, index, end);
+        if (result < 0 && log.isTraceEnabled()) {
+            log.trace("The " + (int) text.charAt(index) + " is a lone surrogate");
+        }
+        return result;
+    }
+
+    private static int codePointAt(char[] chars, int index, int end) {
+        int result = CodePointTable.codePointAt(chars, index, end);
+        if (result < 0 && log.isTraceEnabled()) {
+            log.trace("The " + (int) chars[index] + " is a lone surrogate");
+        }
+        return result;
+    }
+
+    // appends the mapping of the given supplementary code point and returns the new count
+    private static int appendTo(int codePoint, CodePointTable table, char[] target, int count) {
+        int entry = table.entry(codePoint);
+        if (entry == 0) {
+            if (log.isTraceEnabled()) {
+                log.trace("The " + Integer.toHexString(codePoint) + " code point is not mapped");
+            }
+            return count;
         }
-        return result.toString();
+        int length = StringTable.length(entry);
+        System.arraycopy(table.pool(), StringTable.offset(entry), target, count, length);
+        return count + length;
     }
 
-    private char[] getTable(Locale locale) {
-        char[] result = tables.get(locale);
+    // copies the chars in bulk if the text allows it
+    private static void getChars(CharSequence text, char[] target, int length) {
+        if (text instanceof String) {
+            ((String) text).getChars(0, length, target, 0);
+        } else if (text instanceof StringBuilder) {
+            ((StringBuilder) text).getChars(0, length, target, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                target[i] = text.charAt(i);
+            }
+        }
+    }
+
+    // resolves the table of a normalization, so it is counted as a usage of the locale
+    private CharTable use(Locale locale) {
+        LocaleTable<CharTable> result = getLocaleTable(locale);
+        result.usages.increment();
+        return result.table;
+    }
+
+    private LocaleTable<CharTable> getLocaleTable(Locale locale) {
+        LocaleTable<CharTable> result = tables.get(locale);
         if (result == null) {
-            result = loadTable(locale);
-            tables.put(locale, result);
+            // the loaded tables are looked up first, computeIfAbsent locks the entry even if it is present
+            result = tables.computeIfAbsent(locale, key -> new LocaleTable<>(loadTable(key)));
         }
         return result;
     }
 
-    private char[] loadTable(Locale locale) {
+    private CharTable loadTable(Locale locale) {
         List<String> locations = new ArrayList<>(2);
         locations.add(location + locale.getLanguage() + ".table");
         if (locale.getCountry() != null) {
             locations.add(location + locale.getLanguage() + "_" + locale.getCountry() + ".table");
         }
         for (String location : locations) {
-            Resource resource = new ClassPathResource(location);
-            char[] result = loadTable(resource);
-            if (result != null) {
+            CharTable result = getTable(location);
+            if (result != MISSING_TABLE) {
                 return result;
             }
         }
@@ -121,11 +367,87 @@ public class CharNormalizer implements TextNormalizer {
         return getDefaultTable();
     }
 
-    private char[] loadTable(Resource resource) {
+    private CharTable getTable(String location) {
+        CharTable result = resourceTables.get(location);
+        if (result == null) {
+            result = resourceTables.computeIfAbsent(location, this::loadResourceTable);
+        }
+        return result;
+    }
+
+    private CharTable loadResourceTable(String location) {
+        CharTable result = loadTable(resourceLoader.getResource(location));
+        return result == null ? MISSING_TABLE : result;
+    }
+
+    @Override
+    public void reload() {
+        // the new tables are loaded first and then swapped one by one, so the normalization never waits for a load
+        for (String location : resourceTables.keySet()) {
+            resourceTables.put(location, loadResourceTable(location));
+        }
+        if (defaultTable != null) {
+            defaultTable = loadDefaultTable();
+        }
+        // the tables of the locales are already loaded by their locations, they are just resolved again
+        tables.replaceAll((locale, table) -> table.reload(loadTable(locale)));
+    }
+
+    @Override
+    public void reload(Collection<Path> files) {
+        boolean changed = false;
+        for (String location : resourceTables.keySet()) {
+            if (TableRepository.isAnyOf(resourceLoader.getResource(location), files)) {
+                resourceTables.put(location, loadResourceTable(location));
+                changed = true;
+            }
+        }
+        if (defaultTable != null && TableRepository.isAnyOf(resourceLoader.getResource(location + "default.table"),
+                files)) {
+            defaultTable = loadDefaultTable();
+            changed = true;
+        }
+        if (changed) {
+            tables.replaceAll((locale, table) -> table.reload(loadTable(locale)));
+        }
+    }
+
+    @Override
+    public Map<Locale, Long> getUsages() {
+        return LocaleTable.usages(tables);
+    }
+
+    @Override
+    public void warmUp(Locale locale) {
+        if (locale == null) {
+            getDefaultTable();
+        } else {
+            getLocaleTable(locale);
+        }
+    }
+
+    // the tables are shared by all the char normalizers of the same mode through the table repository
+    private CharTable loadTable(Resource resource) {
+        String kind = codePoints ? "char-code-points" : "char";
+        try {
+            // the compiled table is preferred, the text one is only a fallback
+            Resource compiled = CompiledTable.locate(resource);
+            if (compiled != null) {
+                return TableRepository.get(kind, compiled, content -> {
+                    CompiledTable table = CompiledTable.read(content);
+                    return createTable(table.toChars(), codePoints ? table.toSupplementary(true) : null);
+                });
+            }
+        } catch (IOException e) {
+            log.warn("Unable to load the compiled '" + resource.getDescription() + "' normalization table, "
+                    + "parsing the text one!", e);
+        }
         if (resource.exists()) {
-            TableParser parser = new TableParser(resource);
             try {
-                return parser.getTable();
+                return TableRepository.get(kind, resource, content -> {
+                    TableParser parser = new TableParser(new ByteArrayResource(content, resource.getDescription()));
+                    return createTable(parser.getTable(), codePoints ? parser.getSupplementaryTable() : null);
+                });
             } catch (IOException e) {
                 log.error("Unable to load the '" + resource.getDescription() + "' normalization table!");
             }
@@ -133,16 +455,73 @@ public class CharNormalizer implements TextNormalizer {
         return null;
     }
 
+    private CharTable createTable(char[] chars, CodePointTable supplementary) {
+        if (!codePoints) {
+            return new CharTable(chars, CodePointTable.EMPTY);
+        }
+        // the surrogates are never mapped alone in the code point mode
+        Arrays.fill(chars, Math.min(Character.MIN_SURROGATE, chars.length),
+                Math.min(Character.MAX_SURROGATE + 1, chars.length), (char) 0);
+        return new CharTable(chars, supplementary);
+    }
+
+    // the chars of the text normalized one by one
+    private final class NormalizedText extends NormalizedChars {
+        private final CharSequence text;
+        private final CharTable table;
+        private int index;
+        // the pending chars of a supplementary code point
+        private char[] pool;
+        private int offset;
+        private int end;
+
+        private NormalizedText(CharSequence text, CharTable table) {
+            this.text = text;
+            this.table = table;
+        }
+
+        @Override
+        int next() {
+            if (offset < end) {
+                return pool[offset++];
+            }
+            char[] chars = table.chars;
+            for (int length = text.length(); index < length; ) {
+                char value = text.charAt(index++);
+                if (codePoints && Character.isSurrogate(value)) {
+                    int codePoint = CodePointTable.codePointAt(text, index - 1, length);
+                    if (codePoint < 0) {
+                        continue;
+                    }
+                    index++;
+                    int entry = table.supplementary.entry(codePoint);
+                    if (entry == 0) {
+                        continue;
+                    }
+                    pool = table.supplementary.pool();
+                    offset = StringTable.offset(entry);
+                    end = offset + StringTable.length(entry);
+                    return pool[offset++];
+                }
+                if (value < chars.length && chars[value] != 0) {
+                    return chars[value];
+                }
+            }
+            return -1;
+        }
+    }
+
     public static class TableParser extends AbstractResourceParser {
         private final List<Line> lines = new ArrayList<>(256);
         private Line line;
+        private boolean parsed;
 
         TableParser(Resource resource) {
             super(resource);
         }
 
         char[] getTable() throws IOException, TextParsingException {
-            parse();
+            parseOnce();
             int size = getTableSize();
             if (size > MAX_TABLE_SIZE) {
                 log.warn("The " + resource + " has table with the size of " + size + " entries, it has been reduced!");
@@ -151,13 +530,13 @@ public class CharNormalizer implements TextNormalizer {
             char[] result = new char[size];
             for (Line line : lines) {
                 int offset = line.offset;
-                List<Character> values = line.values;
+                List<String> values = line.values;
                 for (int i = 0, valuesSize = values.size(); i < valuesSize; i++) {
-                    Character value = values.get(i);
+                    String value = values.get(i);
                     int index = offset + i;
                     if (index < result.length) {
-                        result[index] = value;
-                    } else {
+                        result[index] = value.charAt(0);
+                    } else if (index < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
                         if (log.isDebugEnabled()) {
                             log.debug("The '" + value + "' value ignored, it is out of the table range!");
                         }
@@ -167,10 +546,58 @@ public class CharNormalizer implements TextNormalizer {
             return result;
         }
 
+        /**
+         * Returns the sparse table of the supplementary code points, each code point is mapped to the first code point
+         * of its value.
+         */
+        CodePointTable getSupplementaryTable() throws IOException, TextParsingException {
+            parseOnce();
+            Map<Integer, String> mappings = new HashMap<>();
+            for (Line line : lines) {
+                List<String> values = line.values;
+                for (int i = 0, valuesSize = values.size(); i < valuesSize; i++) {
+                    int codePoint = line.offset + i;
+                    if (Character.isSupplementaryCodePoint(codePoint)) {
+                        String value = values.get(i);
+                        mappings.put(codePoint, value.substring(0, Character.charCount(value.codePointAt(0))));
+                    }
+                }
+            }
+            return mappings.isEmpty() ? CodePointTable.EMPTY : new CodePointTable(mappings);
+        }
+
+        private void parseOnce() throws IOException, TextParsingException {
+            if (!parsed) {
+                parse();
+                parsed = true;
+            }
+        }
+
+        /**
+         * Returns the compiled table of all the lines including the space comments in the order of the table.
+         */
+        CompiledTable getCompiledTable() throws IOException, TextParsingException {
+            parseOnce();
+            int[] offsets = new int[lines.size()];
+            boolean[] spaces = new boolean[lines.size()];
+            List<List<String>> values = new ArrayList<>(lines.size());
+            for (int i = 0; i < offsets.length; i++) {
+                Line line = lines.get(i);
+                offsets[i] = line.offset;
+                spaces[i] = line.space;
+                values.add(line.values);
+            }
+            return new CompiledTable(offsets, spaces, values);
+        }
+
+        // the size of the dense table of the BMP chars
         int getTableSize() {
             int result = 0;
             for (Line line : lines) {
-                int size = line.offset + line.values.size();
+                if (line.offset >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                    continue;
+                }
+                int size = Math.min(line.offset + line.values.size(), Character.MIN_SUPPLEMENTARY_CODE_POINT);
                 if (size > result) {
                     result = size;
                 }
@@ -195,7 +622,7 @@ public class CharNormalizer implements TextNormalizer {
                     }
                 } else {
                     int offset = Integer.parseInt(token.toString(), 16);
-                    line = new Line(offset);
+                    line = new Line(offset, false);
                     lines.add(line);
                 }
                 return;
@@ -220,7 +647,7 @@ public class CharNormalizer implements TextNormalizer {
                 if (StringUtils.hasLength(token)) {
                     try {
                         int offset = Integer.valueOf(token, 16);
-                        Line line = new Line(offset);
+                        Line line = new Line(offset, true);
                         line.add(" ");
                         lines.add(line);
                     } catch (NumberFormatException e) {
@@ -239,14 +666,17 @@ public class CharNormalizer implements TextNormalizer {
             line = null;
         }
 
-        private class Line extends TextNormalizer.Line<Character> {
+        private class Line extends TextNormalizer.Line<String> {
+            // the line of a space comment
+            private final boolean space;
 
-            private Line(int offset) {
+            private Line(int offset, boolean space) {
                 super(offset);
+                this.space = space;
             }
 
             void add(String value) {
-                values.add(value.charAt(0));
+                values.add(value);
             }
         }
     }
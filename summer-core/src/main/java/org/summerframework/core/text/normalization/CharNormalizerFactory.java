@@ -1,15 +1,31 @@
 package org.summerframework.core.text.normalization;
 
-
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.ResourceUtils;
 import org.summerframework.util.StringUtils;
 
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * The {@link TextNormalizerFactory} provides {@link TextNormalizer} doing very fast normalization based converting a
  * single char to char.
  */
 public class CharNormalizerFactory extends AbstractTextNormalizerFactory<TextNormalizer> {
 
+    private static final Logger log = LoggerFactory.getLogger(CharNormalizerFactory.class);
+    private static final String TABLE_EXTENSION = ".table";
+
     protected String location = "/META-INF/normalize/";
+    private boolean codePoints;
 
     public static final CharNormalizerFactory DEFAULT = new CharNormalizerFactory();
 
@@ -24,13 +40,64 @@ public class CharNormalizerFactory extends AbstractTextNormalizerFactory<TextNor
         this.location = location;
     }
 
+    /**
+     * Returns true if the created normalizers normalize the surrogate pairs as the supplementary code points.
+     */
+    public boolean isCodePoints() {
+        return codePoints;
+    }
+
+    /**
+     * Sets the code point mode of the normalizers created from now on.
+     *
+     * @param codePoints true to normalize the surrogate pairs as the supplementary code points
+     */
+    public void setCodePoints(boolean codePoints) {
+        this.codePoints = codePoints;
+    }
+
+    /**
+     * Discovers all the <code>*.table</code> resources under the location on the classpath or under the URL location
+     * like <code>file:</code>. The directory of a table is the name of its normalizer and the file name is its locale
+     * or <code>default</code>.
+     */
+    @Override
+    protected Map<String, Set<Locale>> discoverTables() {
+        Map<String, Set<Locale>> result = new LinkedHashMap<>();
+        try {
+            PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+            String root;
+            String pattern;
+            if (ResourceUtils.isUrl(location)) {
+                // the tables outside of the classpath, e.g. on the file system
+                root = resolver.getResource(location).getURL().toString();
+                pattern = location + "**/*" + TABLE_EXTENSION;
+            } else {
+                root = location.startsWith("/") ? location.substring(1) : location;
+                pattern = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + root + "**/*" + TABLE_EXTENSION;
+            }
+            for (Resource resource : resolver.getResources(pattern)) {
+                String url = resource.getURL().toString();
+                String path = url.substring(url.lastIndexOf(root) + root.length(), url.length() - TABLE_EXTENSION.length());
+                int slash = path.lastIndexOf('/');
+                String name = slash < 0 ? null : path.substring(0, slash);
+                String file = path.substring(slash + 1);
+                Locale locale = "default".equals(file) ? null : StringUtils.parseLocaleString(file);
+                result.computeIfAbsent(name, key -> new HashSet<>()).add(locale);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to discover the normalization tables under the '" + location + "'!", e);
+        }
+        return result;
+    }
+
     @Override
     protected TextNormalizer createNormalizer(String name) {
         StringBuilder location = new StringBuilder(this.location);
         if (StringUtils.hasLength(name)) {
             location.append(name);
         }
-        return new CharNormalizer(location.toString());
+        return new CharNormalizer(location.toString(), codePoints);
     }
 
 }
@@ -0,0 +1,16 @@
+package org.summerframework.core.text.normalization;
+
+/**
+ * The normalization table of the {@link CharNormalizer}. The BMP chars are mapped by the dense array of chars, the
+ * supplementary code points are mapped by the sparse table used only in the code point mode.
+ */
+final class CharTable {
+    final char[] chars;
+    final CodePointTable supplementary;
+
+    CharTable(char[] chars, CodePointTable supplementary) {
+        this.chars = chars;
+        this.supplementary = supplementary;
+    }
+
+}
@@ -0,0 +1,148 @@
+package org.summerframework.core.text.normalization;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The sparse normalization table of the supplementary code points. There are only a few mapped code points out of the
+ * whole supplementary range, so they are kept in an open addressing hash table instead of a dense array. The mapped
+ * strings are stored in a single pool of chars the same way as in the {@link StringTable}, so an entry of this table
+ * is read by {@link StringTable#offset(int)} and {@link StringTable#length(int)}.
+ * <p>
+ * The table is immutable and thread safe.
+ */
+final class CodePointTable {
+    static final CodePointTable EMPTY = new CodePointTable(new HashMap<>(0));
+
+    // the keys are the code points, 0 marks an empty slot as it is never a supplementary code point
+    private final int[] keys;
+    private final int[] entries;
+    private final char[] pool;
+    private final int shift;
+    private final int size;
+
+    /**
+     * Creates a table from the given mappings.
+     *
+     * @param mappings the required mappings of the supplementary code points to non empty strings
+     * @throws IllegalArgumentException If a code point is not supplementary or a string is empty or too long.
+     */
+    CodePointTable(Map<Integer, String> mappings) {
+        this.size = mappings.size();
+        // at most half of the slots are used
+        int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+        this.keys = new int[capacity];
+        this.entries = new int[capacity];
+        this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        Map<String, Integer> offsets = new HashMap<>(size * 2);
+        StringBuilder pool = new StringBuilder(size * 2);
+        for (Map.Entry<Integer, String> mapping : mappings.entrySet()) {
+            int codePoint = mapping.getKey();
+            String value = mapping.getValue();
+            if (!Character.isSupplementaryCodePoint(codePoint)) {
+                throw new IllegalArgumentException("Unable to map the " + Integer.toHexString(codePoint)
+                        + " code point, it is not a supplementary one!");
+            }
+            if (value.isEmpty() || value.length() > StringTable.MAX_LENGTH) {
+                throw new IllegalArgumentException("Unable to map the " + Integer.toHexString(codePoint)
+                        + " code point to the '" + value + "', the length must be from 1 to " + StringTable.MAX_LENGTH
+                        + "!");
+            }
+            Integer offset = offsets.get(value);
+            if (offset == null) {
+                offset = pool.length();
+                offsets.put(value, offset);
+                pool.append(value);
+            }
+            int slot = slot(codePoint);
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            keys[slot] = codePoint;
+            entries[slot] = offset << StringTable.LENGTH_BITS | value.length();
+        }
+        this.pool = pool.toString().toCharArray();
+    }
+
+    private int slot(int codePoint) {
+        return (codePoint * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * Returns the entry of the given code point or 0 if the code point is not mapped.
+     */
+    int entry(int codePoint) {
+        if (size == 0) {
+            return 0;
+        }
+        int mask = keys.length - 1;
+        for (int slot = slot(codePoint); ; slot = (slot + 1) & mask) {
+            int key = keys[slot];
+            if (key == codePoint) {
+                return entries[slot];
+            }
+            if (key == 0) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the pool of the mapped chars, it must not be modified.
+     */
+    char[] pool() {
+        return pool;
+    }
+
+    /**
+     * Returns the mapped string of the given code point or null if the code point is not mapped.
+     */
+    String get(int codePoint) {
+        int entry = entry(codePoint);
+        return entry == 0 ? null : new String(pool, StringTable.offset(entry), StringTable.length(entry));
+    }
+
+    /**
+     * Returns the number of the mapped code points.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the supplementary code point of the surrogate pair at the given index or -1 if there is no valid pair.
+     *
+     * @param text  the required text
+     * @param index the index of the high surrogate
+     * @param end   the end of the text, exclusive
+     */
+    static int codePointAt(CharSequence text, int index, int end) {
+        char high = text.charAt(index);
+        if (Character.isHighSurrogate(high) && index + 1 < end) {
+            char low = text.charAt(index + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(high, low);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the supplementary code point of the surrogate pair at the given index or -1 if there is no valid pair.
+     *
+     * @param chars the required chars
+     * @param index the index of the high surrogate
+     * @param end   the end of the chars, exclusive
+     */
+    static int codePointAt(char[] chars, int index, int end) {
+        char high = chars[index];
+        if (Character.isHighSurrogate(high) && index + 1 < end) {
+            char low = chars[index + 1];
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(high, low);
+            }
+        }
+        return -1;
+    }
+
+}
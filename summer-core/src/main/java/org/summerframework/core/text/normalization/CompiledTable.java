@@ -0,0 +1,299 @@
+package org.summerframework.core.text.normalization;
+
+import org.springframework.core.io.Resource;
+import org.springframework.util.StreamUtils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The normalization table compiled by the {@link TableCompiler} into the binary format, so it is loaded by a single
+ * bulk read instead of being parsed. The compiled table is stored next to its text table with the {@link #EXTENSION}
+ * appended to its name. All the numbers are big endian:
+ * <pre>
+ * int   magic      the "NTB2" chars
+ * int   lineCount  the number of the lines
+ * int   valueCount the number of the values of all the lines
+ * int   poolSize   the number of the pool chars
+ * int[] lines      the offsets of the lines in the order of the text table, the space comments have the highest bit set
+ * int[] lineEnds   the end indexes of the values of the lines
+ * int[] ends       the end offsets of the values in the pool
+ * char[] pool      the chars of all the values
+ * </pre>
+ * The lines are kept in the order of the text table, so each normalizer resolves them the same way as its text parser.
+ * The {@link CharNormalizer} applies all the lines including the space comments one by one, the later lines override
+ * the earlier ones. The {@link StringNormalizer} ignores the space comments and the later lines of the same offset.
+ */
+final class CompiledTable {
+    static final String EXTENSION = ".bin";
+    private static final int MAGIC = 0x4E544232;
+    private static final int HEADER_SIZE = 16;
+    // the flag of the line of a space comment
+    private static final int SPACE = 0x80000000;
+
+    private final int[] lines;
+    private final int[] lineEnds;
+    private final int[] ends;
+    private final char[] pool;
+
+    private CompiledTable(int[] lines, int[] lineEnds, int[] ends, char[] pool) {
+        this.lines = lines;
+        this.lineEnds = lineEnds;
+        this.ends = ends;
+        this.pool = pool;
+    }
+
+    /**
+     * Creates a table from the given lines of a text table.
+     *
+     * @param offsets the offsets of the lines in the order of the text table
+     * @param spaces  the flags of the lines of the space comments
+     * @param values  the non empty values of the lines
+     */
+    CompiledTable(int[] offsets, boolean[] spaces, List<List<String>> values) {
+        this.lines = new int[offsets.length];
+        this.lineEnds = new int[offsets.length];
+        this.ends = new int[values.stream().mapToInt(List::size).sum()];
+        StringBuilder pool = new StringBuilder(ends.length * 2);
+        for (int i = 0, index = 0; i < offsets.length; i++) {
+            lines[i] = spaces[i] ? offsets[i] | SPACE : offsets[i];
+            for (String value : values.get(i)) {
+                pool.append(value);
+                ends[index++] = pool.length();
+            }
+            lineEnds[i] = index;
+        }
+        this.pool = pool.toString().toCharArray();
+    }
+
+    /**
+     * Reads the compiled table stored next to the given text table.
+     *
+     * @param resource the required text table resource, it may not exist
+     * @return the compiled table or null if there is none
+     * @throws IOException If the compiled table can't be read or it is corrupted.
+     */
+    static CompiledTable read(Resource resource) throws IOException {
+        Resource compiled = locate(resource);
+        if (compiled == null) {
+            return null;
+        }
+        try (InputStream in = compiled.getInputStream()) {
+            return read(StreamUtils.copyToByteArray(in));
+        }
+    }
+
+    /**
+     * Returns the resource of the compiled table stored next to the given text table.
+     *
+     * @param resource the required text table resource, it may not exist
+     * @return the compiled table resource or null if there is none
+     * @throws IOException If the compiled table resource can't be resolved.
+     */
+    static Resource locate(Resource resource) throws IOException {
+        String filename = resource.getFilename();
+        if (filename == null) {
+            return null;
+        }
+        Resource compiled = resource.createRelative(filename + EXTENSION);
+        return compiled.exists() ? compiled : null;
+    }
+
+    /**
+     * Reads the compiled table from the given content of its resource.
+     *
+     * @throws IOException If the content is corrupted.
+     */
+    static CompiledTable read(byte[] content) throws IOException {
+        return read(ByteBuffer.wrap(content));
+    }
+
+    private static CompiledTable read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Unable to read a compiled table, the format is unknown!");
+        }
+        int lineCount = buffer.getInt();
+        int valueCount = buffer.getInt();
+        int poolSize = buffer.getInt();
+        if (lineCount < 0 || valueCount < 0 || poolSize < 0
+                || (lineCount * 2L + valueCount) * 4 + poolSize * 2L != buffer.remaining()) {
+            throw new IOException("Unable to read a compiled table, the size doesn't match its header!");
+        }
+        int[] lines = new int[lineCount];
+        int[] lineEnds = new int[lineCount];
+        int[] ends = new int[valueCount];
+        char[] pool = new char[poolSize];
+        buffer.asIntBuffer().get(lines).get(lineEnds).get(ends);
+        buffer.position(buffer.position() + (lineCount * 2 + valueCount) * 4);
+        buffer.asCharBuffer().get(pool);
+        for (int i = 0, start = 0; i < lineCount; i++) {
+            int offset = lines[i] & ~SPACE;
+            if (offset > Character.MAX_CODE_POINT || lineEnds[i] < start || lineEnds[i] > valueCount) {
+                throw new IOException("Unable to read a compiled table, the " + i + " line is corrupted!");
+            }
+            start = lineEnds[i];
+        }
+        for (int i = 0, start = 0; i < valueCount; i++) {
+            if (ends[i] <= start || ends[i] > poolSize) {
+                throw new IOException("Unable to read a compiled table, the " + i + " value is corrupted!");
+            }
+            start = ends[i];
+        }
+        return new CompiledTable(lines, lineEnds, ends, pool);
+    }
+
+    /**
+     * Writes this table in the binary format to the given output.
+     */
+    void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(lines.length);
+        data.writeInt(ends.length);
+        data.writeInt(pool.length);
+        for (int line : lines) {
+            data.writeInt(line);
+        }
+        for (int end : lineEnds) {
+            data.writeInt(end);
+        }
+        for (int end : ends) {
+            data.writeInt(end);
+        }
+        for (char c : pool) {
+            data.writeChar(c);
+        }
+        data.flush();
+    }
+
+    /**
+     * Returns the dense table of the BMP chars for the {@link CharNormalizer}, each char is mapped to the first char of
+     * its string.
+     */
+    char[] toChars() {
+        Mappings mappings = resolve(true);
+        char[] result = new char[mappings.tableSize()];
+        for (int i = 0; i < mappings.bmpCount; i++) {
+            int codePoint = mappings.codePoints[i];
+            if (codePoint < result.length) {
+                result[codePoint] = pool[mappings.starts[i]];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the table for the {@link StringNormalizer}, it shares the pool of this table.
+     *
+     * @param codePoints true to create the table for the code point mode
+     */
+    StringTable toStringTable(boolean codePoints) {
+        Mappings mappings = resolve(false);
+        int size = mappings.tableSize();
+        if (!codePoints) {
+            return new StringTable(size, mappings.codePoints, mappings.starts, mappings.ends, pool, 0, 0,
+                    CodePointTable.EMPTY);
+        }
+        // the surrogates are never mapped alone in the code point mode
+        return new StringTable(size, mappings.codePoints, mappings.starts, mappings.ends, pool,
+                Character.MIN_SURROGATE, Character.MAX_SURROGATE + 1, toSupplementary(mappings, false));
+    }
+
+    /**
+     * Returns the dense table of the BMP chars for the {@link StringNormalizer}.
+     */
+    String[] toStrings() {
+        Mappings mappings = resolve(false);
+        String[] result = new String[mappings.tableSize()];
+        for (int i = 0; i < mappings.bmpCount; i++) {
+            int codePoint = mappings.codePoints[i];
+            if (codePoint < result.length) {
+                result[codePoint] = new String(pool, mappings.starts[i], mappings.ends[i] - mappings.starts[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sparse table of the supplementary code points.
+     *
+     * @param chars true to create the table for the {@link CharNormalizer}, each code point is mapped only to the
+     *              first code point of its string, false to create the table for the {@link StringNormalizer}
+     */
+    CodePointTable toSupplementary(boolean chars) {
+        return toSupplementary(resolve(chars), chars);
+    }
+
+    private CodePointTable toSupplementary(Mappings mappings, boolean firstCodePoint) {
+        int count = mappings.codePoints.length;
+        if (mappings.bmpCount == count) {
+            return CodePointTable.EMPTY;
+        }
+        Map<Integer, String> result = new HashMap<>((count - mappings.bmpCount) * 2);
+        for (int i = mappings.bmpCount; i < count; i++) {
+            int start = mappings.starts[i];
+            int length = firstCodePoint ? Character.charCount(Character.codePointAt(pool, start))
+                    : mappings.ends[i] - start;
+            result.put(mappings.codePoints[i], new String(pool, start, length));
+        }
+        return new CodePointTable(result);
+    }
+
+    // resolves the lines the same way as the text parser of the char or the string normalizer
+    private Mappings resolve(boolean chars) {
+        // the index of the value of each mapped code point, the later lines override the earlier ones
+        Map<Integer, Integer> values = new HashMap<>(ends.length * 2);
+        Set<Integer> offsets = new HashSet<>(lines.length * 2);
+        for (int i = 0, start = 0; i < lines.length; start = lineEnds[i++]) {
+            int offset = lines[i] & ~SPACE;
+            // the string parser ignores the space comments and keeps only the first line of an offset
+            if (!chars && ((lines[i] & SPACE) != 0 || !offsets.add(offset))) {
+                continue;
+            }
+            for (int j = start; j < lineEnds[i] && offset + j - start <= Character.MAX_CODE_POINT; j++) {
+                values.put(offset + j - start, j);
+            }
+        }
+        int[] codePoints = values.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[] starts = new int[codePoints.length];
+        int[] ends = new int[codePoints.length];
+        for (int i = 0; i < codePoints.length; i++) {
+            int value = values.get(codePoints[i]);
+            starts[i] = value == 0 ? 0 : this.ends[value - 1];
+            ends[i] = this.ends[value];
+        }
+        return new Mappings(codePoints, starts, ends);
+    }
+
+    // the resolved mappings of the code points in the ascending order to the ranges of the pool
+    private static final class Mappings {
+        private final int[] codePoints;
+        private final int[] starts;
+        private final int[] ends;
+        // the number of the BMP code points, they are at the beginning of the sorted code points
+        private final int bmpCount;
+
+        private Mappings(int[] codePoints, int[] starts, int[] ends) {
+            this.codePoints = codePoints;
+            this.starts = starts;
+            this.ends = ends;
+            int index = Arrays.binarySearch(codePoints, Character.MIN_SUPPLEMENTARY_CODE_POINT);
+            this.bmpCount = index < 0 ? -index - 1 : index;
+        }
+
+        // the size of the dense table of the BMP chars
+        private int tableSize() {
+            return bmpCount == 0 ? 0 : Math.min(codePoints[bmpCount - 1] + 1, TextNormalizer.MAX_TABLE_SIZE);
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package org.summerframework.core.text.normalization;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The table resolved for a locale by a normalizer together with the number of the normalizations using it. The
+ * counter survives the reload of the table, so the usages of a locale are never reset.
+ */
+final class LocaleTable<T> {
+    final T table;
+    final LongAdder usages;
+
+    LocaleTable(T table) {
+        this(table, new LongAdder());
+    }
+
+    private LocaleTable(T table, LongAdder usages) {
+        this.table = table;
+        this.usages = usages;
+    }
+
+    /**
+     * Returns the table of this locale reloaded, it keeps counting the usages of this one.
+     */
+    LocaleTable<T> reload(T table) {
+        return new LocaleTable<>(table, usages);
+    }
+
+    /**
+     * Returns the number of the normalizations by the locales of the given tables.
+     */
+    static Map<Locale, Long> usages(Map<Locale, ? extends LocaleTable<?>> tables) {
+        Map<Locale, Long> result = new HashMap<>();
+        for (Map.Entry<Locale, ? extends LocaleTable<?>> table : tables.entrySet()) {
+            result.put(table.getKey(), table.getValue().usages.sum());
+        }
+        return result;
+    }
+
+}
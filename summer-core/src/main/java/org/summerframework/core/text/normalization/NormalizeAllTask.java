@@ -0,0 +1,171 @@
+package org.summerframework.core.text.normalization;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.summerframework.util.DurationUtils;
+
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The fork join task normalizing a range of the texts of a batch, the range is split in halves until it is small
+ * enough to be normalized by a single thread. It also creates the spliterators normalizing the streams of the texts.
+ */
+final class NormalizeAllTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private static final Logger log = LoggerFactory.getLogger(NormalizeAllTask.class);
+
+    // the number of the texts normalized by a single task, the smaller batches are not split at all
+    static final int BATCH_SIZE = 1024;
+
+    private final Function<CharSequence, String> normalizer;
+    private final CharSequence[] texts;
+    private final String[] results;
+    private final int start;
+    private final int end;
+
+    private NormalizeAllTask(Function<CharSequence, String> normalizer, CharSequence[] texts, String[] results,
+                             int start, int end) {
+        this.normalizer = normalizer;
+        this.texts = texts;
+        this.results = results;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Normalizes all the given texts into the results at the same indexes, the large batches are normalized in the
+     * given pool. The throughput of the batch is logged on the debug level.
+     */
+    static void normalize(Function<CharSequence, String> normalizer, CharSequence[] texts, String[] results,
+                          ForkJoinPool pool) {
+        Assert.isTrue(results.length >= texts.length, "Unable to normalize " + texts.length
+                + " texts, there are only " + results.length + " results!");
+        long time = System.nanoTime();
+        NormalizeAllTask task = new NormalizeAllTask(normalizer, texts, results, 0, texts.length);
+        if (texts.length <= BATCH_SIZE) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+        logThroughput(texts.length, System.nanoTime() - time);
+    }
+
+    /**
+     * Returns the spliterator of the given texts normalized by the given normalizer. The throughput is logged on the
+     * debug level once the texts of all the splits are normalized, a partially traversed spliterator is not logged.
+     */
+    static Spliterator<String> normalize(Function<CharSequence, String> normalizer,
+                                         Spliterator<? extends CharSequence> texts) {
+        return new NormalizingSpliterator(normalizer, texts, new Throughput());
+    }
+
+    private static void logThroughput(long count, long time) {
+        if (log.isDebugEnabled()) {
+            log.debug("Normalized " + count + " texts in " + DurationUtils.microDuration(time) + " ("
+                    + (time == 0 ? count : count * 1000000000L / time) + " texts/sec)");
+        }
+    }
+
+    @Override
+    protected void compute() {
+        if (end - start <= BATCH_SIZE) {
+            for (int i = start; i < end; i++) {
+                results[i] = normalizer.apply(texts[i]);
+            }
+            return;
+        }
+        int middle = (start + end) >>> 1;
+        invokeAll(new NormalizeAllTask(normalizer, texts, results, start, middle),
+                new NormalizeAllTask(normalizer, texts, results, middle, end));
+    }
+
+    // the throughput of all the splits of a spliterator
+    private static final class Throughput {
+        private final long time = System.nanoTime();
+        private final AtomicInteger active = new AtomicInteger(1);
+        private final LongAdder count = new LongAdder();
+
+        private void split() {
+            active.incrementAndGet();
+        }
+
+        private void finish(long count) {
+            this.count.add(count);
+            if (active.decrementAndGet() == 0) {
+                logThroughput(this.count.sum(), System.nanoTime() - time);
+            }
+        }
+    }
+
+    private static final class NormalizingSpliterator implements Spliterator<String> {
+        private final Function<CharSequence, String> normalizer;
+        private final Spliterator<? extends CharSequence> texts;
+        private final Throughput throughput;
+        private long count;
+        private boolean finished;
+
+        private NormalizingSpliterator(Function<CharSequence, String> normalizer,
+                                       Spliterator<? extends CharSequence> texts, Throughput throughput) {
+            this.normalizer = normalizer;
+            this.texts = texts;
+            this.throughput = throughput;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            boolean result = texts.tryAdvance(text -> {
+                count++;
+                action.accept(normalizer.apply(text));
+            });
+            if (!result) {
+                finish();
+            }
+            return result;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super String> action) {
+            texts.forEachRemaining(text -> {
+                count++;
+                action.accept(normalizer.apply(text));
+            });
+            finish();
+        }
+
+        @Override
+        public Spliterator<String> trySplit() {
+            Spliterator<? extends CharSequence> split = texts.trySplit();
+            if (split == null) {
+                return null;
+            }
+            throughput.split();
+            return new NormalizingSpliterator(normalizer, split, throughput);
+        }
+
+        @Override
+        public long estimateSize() {
+            return texts.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            // the normalized texts are neither sorted nor distinct as the original ones may be
+            return texts.characteristics() & (ORDERED | SIZED | SUBSIZED | IMMUTABLE | CONCURRENT);
+        }
+
+        private void finish() {
+            if (!finished) {
+                finished = true;
+                throughput.finish(count);
+            }
+        }
+    }
+
+}
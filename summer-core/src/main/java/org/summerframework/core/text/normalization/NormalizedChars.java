@@ -0,0 +1,59 @@
+package org.summerframework.core.text.normalization;
+
+/**
+ * The chars of a normalized text produced one by one as the text is normalized, so two normalized texts are compared
+ * without creating them.
+ */
+abstract class NormalizedChars {
+
+    /**
+     * Returns the next normalized char or -1 if there is none.
+     */
+    abstract int next();
+
+    /**
+     * Returns true if both the normalized texts have the same chars.
+     */
+    static boolean equals(NormalizedChars a, NormalizedChars b) {
+        for (; ; ) {
+            int value = a.next();
+            if (value != b.next()) {
+                return false;
+            }
+            if (value < 0) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Compares the normalized texts lexicographically, the result is the same as of {@link String#compareTo(String)}.
+     */
+    static int compare(NormalizedChars a, NormalizedChars b) {
+        for (; ; ) {
+            int first = a.next();
+            int second = b.next();
+            if (first != second) {
+                if (first < 0) {
+                    return -1 - remaining(b);
+                }
+                if (second < 0) {
+                    return 1 + remaining(a);
+                }
+                return first - second;
+            }
+            if (first < 0) {
+                return 0;
+            }
+        }
+    }
+
+    private static int remaining(NormalizedChars chars) {
+        int result = 0;
+        while (chars.next() >= 0) {
+            result++;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,145 @@
+package org.summerframework.core.text.normalization;
+
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Locale;
+
+/**
+ * The reader normalizing the chars of the underlying reader by the given {@link TextNormalizer}. The chars are read
+ * and normalized in the chunks of a fixed size, so a text of any size is normalized in a constant memory.
+ * <p>
+ * A high surrogate at the end of a chunk is carried over to the next chunk, so a surrogate pair is never split and
+ * the result is the same as of normalizing the whole text at once. The mark and reset are not supported.
+ */
+public class NormalizingReader extends Reader {
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private final Reader in;
+    private final TextNormalizer normalizer;
+    private final Locale locale;
+    private final char[] input;
+    // the number of the chars carried over to the beginning of the input
+    private int carried;
+    private String output = "";
+    private int position;
+    private boolean eof;
+    private boolean closed;
+
+    /**
+     * Creates the reader normalizing by the current locale.
+     */
+    public NormalizingReader(Reader in, TextNormalizer normalizer) {
+        this(in, normalizer, LocaleContextHolder.getLocale(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates the reader.
+     *
+     * @param in         the required underlying reader
+     * @param normalizer the required normalizer
+     * @param locale     the required locale of the normalization
+     * @param chunkSize  the number of the chars normalized at once, at least 2
+     */
+    public NormalizingReader(Reader in, TextNormalizer normalizer, Locale locale, int chunkSize) {
+        Assert.notNull(in, "Unable to create a normalizing reader, the underlying reader is required!");
+        Assert.notNull(normalizer, "Unable to create a normalizing reader, the normalizer is required!");
+        Assert.isTrue(chunkSize >= 2, "Unable to create a normalizing reader, the chunk size must be at least 2!");
+        this.in = in;
+        this.normalizer = normalizer;
+        this.locale = locale;
+        this.input = new char[chunkSize];
+    }
+
+    @Override
+    public int read() throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            while (position == output.length()) {
+                if (!fill()) {
+                    return -1;
+                }
+            }
+            return output.charAt(position++);
+        }
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            if (off < 0 || len < 0 || len > cbuf.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (position == output.length()) {
+                if (!fill()) {
+                    return -1;
+                }
+            }
+            int count = Math.min(len, output.length() - position);
+            output.getChars(position, position + count, cbuf, off);
+            position += count;
+            return count;
+        }
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            return position < output.length() || in.ready();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (!closed) {
+                closed = true;
+                in.close();
+            }
+        }
+    }
+
+    // reads and normalizes the next chunk, returns false at the end of the underlying reader
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int count = carried;
+        int read = in.read(input, count, input.length - count);
+        int end;
+        if (read < 0) {
+            eof = true;
+            if (count == 0) {
+                return false;
+            }
+            // a lone high surrogate at the end of the text
+            end = count;
+        } else {
+            count += read;
+            end = count > 0 && Character.isHighSurrogate(input[count - 1]) ? count - 1 : count;
+        }
+        // the normalization of the whole chunk is faster than appending the normalized chars one by one
+        output = normalizer.normalize(CharBuffer.wrap(input, 0, end), locale);
+        position = 0;
+        carried = count - end;
+        if (carried > 0) {
+            input[0] = input[end];
+        }
+        return true;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Unable to use the normalizing reader, it has been closed!");
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+package org.summerframework.core.text.normalization;
+
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Locale;
+
+/**
+ * The writer normalizing the written chars by the given {@link TextNormalizer} before they are passed to the
+ * underlying writer. The chars are buffered and normalized in the chunks of a fixed size, so a text of any size is
+ * normalized in a constant memory.
+ * <p>
+ * A high surrogate at the end of a chunk is kept for the next chunk even on {@link #flush()}, so a surrogate pair is
+ * never split and the result is the same as of normalizing the whole text at once. It is written on {@link #close()}
+ * if no low surrogate follows.
+ */
+public class NormalizingWriter extends Writer {
+    public static final int DEFAULT_CHUNK_SIZE = NormalizingReader.DEFAULT_CHUNK_SIZE;
+
+    private final Writer out;
+    private final TextNormalizer normalizer;
+    private final Locale locale;
+    private final char[] input;
+    private int count;
+    private boolean closed;
+
+    /**
+     * Creates the writer normalizing by the current locale.
+     */
+    public NormalizingWriter(Writer out, TextNormalizer normalizer) {
+        this(out, normalizer, LocaleContextHolder.getLocale(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates the writer.
+     *
+     * @param out        the required underlying writer
+     * @param normalizer the required normalizer
+     * @param locale     the required locale of the normalization
+     * @param chunkSize  the number of the chars normalized at once, at least 2
+     */
+    public NormalizingWriter(Writer out, TextNormalizer normalizer, Locale locale, int chunkSize) {
+        Assert.notNull(out, "Unable to create a normalizing writer, the underlying writer is required!");
+        Assert.notNull(normalizer, "Unable to create a normalizing writer, the normalizer is required!");
+        Assert.isTrue(chunkSize >= 2, "Unable to create a normalizing writer, the chunk size must be at least 2!");
+        this.out = out;
+        this.normalizer = normalizer;
+        this.locale = locale;
+        this.input = new char[chunkSize];
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            if (count == input.length) {
+                normalizeChunk(false);
+            }
+            input[count++] = (char) c;
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            if (off < 0 || len < 0 || len > cbuf.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            while (len > 0) {
+                if (count == input.length) {
+                    normalizeChunk(false);
+                }
+                int length = Math.min(len, input.length - count);
+                System.arraycopy(cbuf, off, input, count, length);
+                count += length;
+                off += length;
+                len -= length;
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            if (off < 0 || len < 0 || len > str.length() - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            while (len > 0) {
+                if (count == input.length) {
+                    normalizeChunk(false);
+                }
+                int length = Math.min(len, input.length - count);
+                str.getChars(off, off + length, input, count);
+                count += length;
+                off += length;
+                len -= length;
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            normalizeChunk(false);
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                normalizeChunk(true);
+                out.flush();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    // normalizes the buffered chars and writes the result, the last chunk includes a trailing high surrogate
+    private void normalizeChunk(boolean last) throws IOException {
+        int end = !last && count > 0 && Character.isHighSurrogate(input[count - 1]) ? count - 1 : count;
+        if (end == 0) {
+            return;
+        }
+        // the normalization of the whole chunk is faster than appending the normalized chars one by one
+        String output = normalizer.normalize(CharBuffer.wrap(input, 0, end), locale);
+        out.write(output, 0, output.length());
+        if (end < count) {
+            input[0] = input[end];
+        }
+        count -= end;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Unable to use the normalizing writer, it has been closed!");
+        }
+    }
+
+}
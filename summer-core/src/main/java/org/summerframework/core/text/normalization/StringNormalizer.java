@@ -3,25 +3,36 @@ package org.summerframework.core.text.normalization;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.i18n.LocaleContextHolder;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.summerframework.core.text.TextParsingException;
 import org.summerframework.core.text.parsing.AbstractResourceParser;
 import org.summerframework.util.StringUtils;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * A string normalizer is an utility class that is capable of converting text characters to other characters (or even)
- * string using the fast array of String tables.
+ * string using the compact {@link StringTable}s.
+ * <p>
+ * In the code point mode, a surrogate pair is normalized as a whole by the sparse table of the supplementary code
+ * points, so an emoji is either mapped or dropped entirely and a lone surrogate is always dropped. The BMP chars are
+ * normalized by the same dense table in both modes.
  */
 public class StringNormalizer implements TextNormalizer {
     private static final Logger log = LoggerFactory.getLogger(StringNormalizer.class);
@@ -34,36 +45,72 @@ public class StringNormalizer implements TextNormalizer {
         }
     }
 
+    private static final StringTable ASCII_STRING_TABLE = new StringTable(ASCII_TABLE);
+    // the marker of the table resources that don't exist
+    private static final StringTable MISSING_TABLE = new StringTable(new String[0]);
+
     private final String location;
-    private final Map<Locale, String[]> tables = new HashMap<>();
-    private String[] defaultTable;
+    private final boolean codePoints;
+    // the tables are loaded once per locale, the loaded tables are read without locking
+    private final Map<Locale, LocaleTable<StringTable>> tables = new ConcurrentHashMap<>();
+    // the tables by their resource locations, so the locales sharing a table load it only once
+    private final Map<String, StringTable> resourceTables = new ConcurrentHashMap<>();
+    // the plain locations are on the classpath, the URL ones like file: are loaded from the URL
+    private final ResourceLoader resourceLoader = new DefaultResourceLoader();
+    private final Object defaultTableLock = new Object();
+    private volatile StringTable defaultTable;
 
     // the default (ASCII) normalizer
     public StringNormalizer() {
         this.location = "/META-INF/normalize/";
+        this.codePoints = false;
     }
 
     public StringNormalizer(String location) {
+        this(location, false);
+    }
+
+    public StringNormalizer(String location, boolean codePoints) {
         // normalize location
         if (!location.endsWith("/")) {
             location += "/";
         }
         this.location = location;
+        this.codePoints = codePoints;
     }
 
-    protected String[] getDefaultTable() {
-        if (defaultTable == null) {
-            // one shot table load
-            Resource resource = new ClassPathResource(location + "default.table");
-            defaultTable = loadTable(resource);
-            if (defaultTable == null) {
-                if (log.isWarnEnabled()) {
-                    log.warn("Unable to load the default table from the '" + resource.getDescription() + "', using the ASCII table");
+    /**
+     * Returns true if the surrogate pairs are normalized as the supplementary code points.
+     */
+    public boolean isCodePoints() {
+        return codePoints;
+    }
+
+    protected StringTable getDefaultTable() {
+        StringTable result = defaultTable;
+        if (result == null) {
+            synchronized (defaultTableLock) {
+                result = defaultTable;
+                if (result == null) {
+                    // one shot table load
+                    result = loadDefaultTable();
+                    defaultTable = result;
                 }
-                defaultTable = ASCII_TABLE;
             }
         }
-        return defaultTable;
+        return result;
+    }
+
+    private StringTable loadDefaultTable() {
+        Resource resource = resourceLoader.getResource(location + "default.table");
+        StringTable result = loadTable(resource);
+        if (result == null) {
+            if (log.isWarnEnabled()) {
+                log.warn("Unable to load the default table from the '" + resource.getDescription() + "', using the ASCII table");
+            }
+            result = ASCII_STRING_TABLE;
+        }
+        return result;
     }
 
     public String normalize(CharSequence text) {
@@ -71,42 +118,211 @@ public class StringNormalizer implements TextNormalizer {
     }
 
     public String normalize(CharSequence text, Locale locale) {
+        if (!StringUtils.hasLength(text)) {
+            return text.toString();
+        }
+        return normalize(text, use(locale));
+    }
+
+    @Override
+    public Function<CharSequence, String> bind(Locale locale) {
+        LocaleTable<StringTable> table = getLocaleTable(locale);
+        return text -> {
+            table.usages.increment();
+            return normalize(text, table.table);
+        };
+    }
+
+    private String normalize(CharSequence text, StringTable table) {
         if (!StringUtils.hasLength(text)) {
             return text.toString();
         }
         int length = text.length();
-        String[] table = getTable(locale);
-        StringBuilder result = new StringBuilder(length);
+        char[] pool = table.pool();
+        char[] result = new char[length + 16];
+        int count = 0;
         for (int i = 0; i < length; i++) {
-            int index = text.charAt(i);
-            if (index >= table.length) {
-                if (log.isTraceEnabled()) {
-                    log.trace("The " + index + " is out of the table range");
+            char value = text.charAt(i);
+            int entry;
+            char[] mappedPool = pool;
+            if (codePoints && Character.isSurrogate(value)) {
+                int codePoint = codePointAt(text, i, length);
+                if (codePoint < 0) {
+                    continue;
+                }
+                entry = map(codePoint, table.supplementary());
+                mappedPool = table.supplementary().pool();
+                i++;
+            } else {
+                entry = map(value, table);
+            }
+            if (entry == 0) {
+                continue;
+            }
+            int mappedLength = StringTable.length(entry);
+            if (count + mappedLength > result.length) {
+                result = Arrays.copyOf(result, Math.max(result.length << 1, count + mappedLength));
+            }
+            if (mappedLength == 1) {
+                result[count++] = mappedPool[StringTable.offset(entry)];
+            } else {
+                System.arraycopy(mappedPool, StringTable.offset(entry), result, count, mappedLength);
+                count += mappedLength;
+            }
+        }
+        return new String(result, 0, count);
+    }
+
+    @Override
+    public void normalizeTo(CharSequence text, Appendable target, Locale locale) throws IOException {
+        StringTable table = use(locale);
+        char[] pool = table.pool();
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char value = text.charAt(i);
+            if (codePoints && Character.isSurrogate(value)) {
+                int codePoint = codePointAt(text, i, length);
+                if (codePoint >= 0) {
+                    int entry = map(codePoint, table.supplementary());
+                    char[] supplementaryPool = table.supplementary().pool();
+                    for (int c = StringTable.offset(entry), end = c + StringTable.length(entry); c < end; c++) {
+                        target.append(supplementaryPool[c]);
+                    }
+                    i++;
                 }
                 continue;
             }
-            String mapped = table[index];
-            if (mapped == null) {
-                if (log.isTraceEnabled()) {
-                    log.trace("The '" + (char) index + "' is not mapped");
+            int entry = map(value, table);
+            for (int c = StringTable.offset(entry), end = c + StringTable.length(entry); c < end; c++) {
+                target.append(pool[c]);
+            }
+        }
+    }
+
+    @Override
+    public int normalizeTo(CharSequence text, int start, int end, char[] target, int offset, Locale locale) {
+        StringTable table = use(locale);
+        char[] pool = table.pool();
+        int count = offset;
+        for (int i = start; i < end; i++) {
+            char value = text.charAt(i);
+            int entry;
+            char[] mappedPool = pool;
+            if (codePoints && Character.isSurrogate(value)) {
+                int codePoint = codePointAt(text, i, end);
+                if (codePoint < 0) {
+                    continue;
                 }
+                entry = map(codePoint, table.supplementary());
+                mappedPool = table.supplementary().pool();
+                i++;
+            } else {
+                entry = map(value, table);
+            }
+            if (entry == 0) {
                 continue;
             }
-            result.append(mapped);
+            int mappedLength = StringTable.length(entry);
+            if (mappedLength == 1) {
+                target[count++] = mappedPool[StringTable.offset(entry)];
+            } else {
+                System.arraycopy(mappedPool, StringTable.offset(entry), target, count, mappedLength);
+                count += mappedLength;
+            }
         }
-        return result.toString();
+        return count - offset;
+    }
+
+    @Override
+    public int normalizedHash(CharSequence text, Locale locale) {
+        StringTable table = use(locale);
+        char[] pool = table.pool();
+        int result = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char value = text.charAt(i);
+            int entry;
+            char[] mappedPool = pool;
+            if (codePoints && Character.isSurrogate(value)) {
+                int codePoint = CodePointTable.codePointAt(text, i, length);
+                if (codePoint < 0) {
+                    continue;
+                }
+                entry = table.supplementary().entry(codePoint);
+                mappedPool = table.supplementary().pool();
+                i++;
+            } else {
+                entry = table.entry(value);
+            }
+            for (int c = StringTable.offset(entry), end = c + StringTable.length(entry); c < end; c++) {
+                result = 31 * result + mappedPool[c];
+            }
+        }
+        return result;
     }
 
-    public String[] getTable(Locale locale) {
-        String[] result = tables.get(locale);
+    @Override
+    public boolean normalizedEquals(CharSequence a, CharSequence b, Locale locale) {
+        StringTable table = use(locale);
+        return NormalizedChars.equals(new NormalizedText(a, table), new NormalizedText(b, table));
+    }
+
+    @Override
+    public int normalizedCompare(CharSequence a, CharSequence b, Locale locale) {
+        StringTable table = use(locale);
+        return NormalizedChars.compare(new NormalizedText(a, table), new NormalizedText(b, table));
+    }
+
+    // returns the table entry or 0 if the value is not mapped
+    private static int map(char value, StringTable table) {
+        int entry = table.entry(value);
+        if (entry == 0 && log.isTraceEnabled()) {
+            if (value >= table.size()) {
+                log.trace("The " + (int) value + " is out of the table range");
+            } else {
+                log.trace("The '" + value + "' is not mapped");
+            }
+        }
+        return entry;
+    }
+
+    // returns the table entry or 0 if the supplementary code point is not mapped
+    private static int map(int codePoint, CodePointTable table) {
+        int entry = table.entry(codePoint);
+        if (entry == 0 && log.isTraceEnabled()) {
+            log.trace("The " + Integer.toHexString(codePoint) + " code point is not mapped");
+        }
+        return entry;
+    }
+
+    // returns the supplementary code point of the pair at the given index or -1 for a lone surrogate
+    private static int codePointAt(CharSequence text, int index, int end) {
+        int result = CodePointTable.codePointAt(text, index, end);
+        if (result < 0 && log.isTraceEnabled()) {
+            log.trace("The " + (int) text.charAt(index) + " is a lone surrogate");
+        }
+        return result;
+    }
+
+    public StringTable getTable(Locale locale) {
+        return getLocaleTable(locale).table;
+    }
+
+    // resolves the table of a normalization, so it is counted as a usage of the locale
+    private StringTable use(Locale locale) {
+        LocaleTable<StringTable> result = getLocaleTable(locale);
+        result.usages.increment();
+        return result.table;
+    }
+
+    private LocaleTable<StringTable> getLocaleTable(Locale locale) {
+        LocaleTable<StringTable> result = tables.get(locale);
         if (result == null) {
-            result = loadTable(locale);
-            tables.put(locale, result);
+            // the loaded tables are looked up first, computeIfAbsent locks the entry even if it is present
+            result = tables.computeIfAbsent(locale, key -> new LocaleTable<>(loadTable(key)));
         }
         return result;
     }
 
-    private String[] loadTable(Locale locale) {
+    private StringTable loadTable(Locale locale) {
         List<String> locations = new ArrayList<>(2);
         locations.add(location + locale.getLanguage() + ".table");
         String country = locale.getCountry();
@@ -114,9 +330,8 @@ public class StringNormalizer implements TextNormalizer {
             locations.add(location + locale.getLanguage() + "_" + country + ".table");
         }
         for (String location : locations) {
-            Resource resource = new ClassPathResource(location);
-            String[] result = loadTable(resource);
-            if (result != null) {
+            StringTable result = getTable(location);
+            if (result != MISSING_TABLE) {
                 return result;
             }
         }
@@ -126,11 +341,86 @@ public class StringNormalizer implements TextNormalizer {
         return getDefaultTable();
     }
 
-    private String[] loadTable(Resource resource) {
+    private StringTable getTable(String location) {
+        StringTable result = resourceTables.get(location);
+        if (result == null) {
+            result = resourceTables.computeIfAbsent(location, this::loadResourceTable);
+        }
+        return result;
+    }
+
+    private StringTable loadResourceTable(String location) {
+        StringTable result = loadTable(resourceLoader.getResource(location));
+        return result == null ? MISSING_TABLE : result;
+    }
+
+    @Override
+    public void reload() {
+        // the new tables are loaded first and then swapped one by one, so the normalization never waits for a load
+        for (String location : resourceTables.keySet()) {
+            resourceTables.put(location, loadResourceTable(location));
+        }
+        if (defaultTable != null) {
+            defaultTable = loadDefaultTable();
+        }
+        // the tables of the locales are already loaded by their locations, they are just resolved again
+        tables.replaceAll((locale, table) -> table.reload(loadTable(locale)));
+    }
+
+    @Override
+    public void reload(Collection<Path> files) {
+        boolean changed = false;
+        for (String location : resourceTables.keySet()) {
+            if (TableRepository.isAnyOf(resourceLoader.getResource(location), files)) {
+                resourceTables.put(location, loadResourceTable(location));
+                changed = true;
+            }
+        }
+        if (defaultTable != null && TableRepository.isAnyOf(resourceLoader.getResource(location + "default.table"),
+                files)) {
+            defaultTable = loadDefaultTable();
+            changed = true;
+        }
+        if (changed) {
+            tables.replaceAll((locale, table) -> table.reload(loadTable(locale)));
+        }
+    }
+
+    @Override
+    public Map<Locale, Long> getUsages() {
+        return LocaleTable.usages(tables);
+    }
+
+    @Override
+    public void warmUp(Locale locale) {
+        if (locale == null) {
+            getDefaultTable();
+        } else {
+            getTable(locale);
+        }
+    }
+
+    // the tables are shared by all the string normalizers of the same mode through the table repository
+    private StringTable loadTable(Resource resource) {
+        String kind = codePoints ? "string-code-points" : "string";
+        try {
+            // the compiled table is preferred, the text one is only a fallback
+            Resource compiled = CompiledTable.locate(resource);
+            if (compiled != null) {
+                return TableRepository.get(kind, compiled, content -> CompiledTable.read(content).toStringTable(codePoints));
+            }
+        } catch (IOException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Unable to load the compiled '" + resource.getDescription() + "' normalization table, "
+                        + "parsing the text one!", e);
+            }
+        }
         if (resource.exists()) {
-            TableParser parser = new TableParser(resource);
             try {
-                return parser.getTable();
+                return TableRepository.get(kind, resource, content -> {
+                    TableParser parser = new TableParser(new ByteArrayResource(content, resource.getDescription()));
+                    return createTable(parser.getTable(), codePoints ? parser.getSupplementaryTable() : null);
+                });
             } catch (FileNotFoundException e) {
                 if (log.isWarnEnabled()) {
                     log.warn("The '" + resource.getDescription() + "' normalization table doesn't exist!");
@@ -144,16 +434,70 @@ public class StringNormalizer implements TextNormalizer {
         return null;
     }
 
+    private StringTable createTable(String[] strings, CodePointTable supplementary) {
+        if (!codePoints) {
+            return new StringTable(strings);
+        }
+        // the surrogates are never mapped alone in the code point mode
+        Arrays.fill(strings, Math.min(Character.MIN_SURROGATE, strings.length),
+                Math.min(Character.MAX_SURROGATE + 1, strings.length), null);
+        return new StringTable(strings, supplementary);
+    }
+
+    // the chars of the text normalized one by one
+    private final class NormalizedText extends NormalizedChars {
+        private final CharSequence text;
+        private final StringTable table;
+        private int index;
+        // the pending chars of the last mapped string
+        private char[] pool;
+        private int offset;
+        private int end;
+
+        private NormalizedText(CharSequence text, StringTable table) {
+            this.text = text;
+            this.table = table;
+        }
+
+        @Override
+        int next() {
+            for (int length = text.length(); offset == end; ) {
+                if (index == length) {
+                    return -1;
+                }
+                char value = text.charAt(index++);
+                int entry;
+                if (codePoints && Character.isSurrogate(value)) {
+                    int codePoint = CodePointTable.codePointAt(text, index - 1, length);
+                    if (codePoint < 0) {
+                        continue;
+                    }
+                    index++;
+                    entry = table.supplementary().entry(codePoint);
+                    pool = table.supplementary().pool();
+                } else {
+                    entry = table.entry(value);
+                    pool = table.pool();
+                }
+                offset = StringTable.offset(entry);
+                end = offset + StringTable.length(entry);
+            }
+            return pool[offset++];
+        }
+    }
+
     public static class TableParser extends AbstractResourceParser {
-        private final Set<Line> lines = new HashSet<>(1024);
+        // the lines in the order of the table, the later lines of the same offset are ignored
+        private final Set<Line> lines = new LinkedHashSet<>(1024);
         private Line line;
+        private boolean parsed;
 
         public TableParser(Resource resource) {
             super(resource);
         }
 
         public String[] getTable() throws IOException, TextParsingException {
-            parse();
+            parseOnce();
             int size = getTableSize();
             if (size > MAX_TABLE_SIZE) {
                 log.warn("The '" + resource + "' has table with the size of " + size + " entries, it has been reduced!");
@@ -168,7 +512,7 @@ public class StringNormalizer implements TextNormalizer {
                     int index = offset + i;
                     if (index < result.length) {
                         result[index] = value;
-                    } else {
+                    } else if (index < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
                         if (log.isDebugEnabled()) {
                             log.debug("The '" + value + "' value ignored, it is out of the table range!");
                         }
@@ -178,10 +522,39 @@ public class StringNormalizer implements TextNormalizer {
             return result;
         }
 
+        /**
+         * Returns the sparse table of the supplementary code points.
+         */
+        CodePointTable getSupplementaryTable() throws IOException, TextParsingException {
+            parseOnce();
+            Map<Integer, String> mappings = new HashMap<>();
+            for (Line line : lines) {
+                List<String> values = line.values;
+                for (int i = 0, valuesSize = values.size(); i < valuesSize; i++) {
+                    int codePoint = line.offset + i;
+                    if (Character.isSupplementaryCodePoint(codePoint)) {
+                        mappings.put(codePoint, values.get(i));
+                    }
+                }
+            }
+            return mappings.isEmpty() ? CodePointTable.EMPTY : new CodePointTable(mappings);
+        }
+
+        private void parseOnce() throws IOException, TextParsingException {
+            if (!parsed) {
+                parse();
+                parsed = true;
+            }
+        }
+
+        // the size of the dense table of the BMP chars
         protected int getTableSize() {
             int result = 0;
             for (Line line : lines) {
-                int size = line.offset + line.values.size();
+                if (line.offset >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                    continue;
+                }
+                int size = Math.min(line.offset + line.values.size(), Character.MIN_SUPPLEMENTARY_CODE_POINT);
                 if (size > result) {
                     result = size;
                 }
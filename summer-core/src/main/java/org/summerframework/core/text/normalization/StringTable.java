@@ -0,0 +1,181 @@
+package org.summerframework.core.text.normalization;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The compact normalization table mapping chars to strings. All the mapped strings are stored in a single pool of
+ * chars and each mapped char has an entry with the offset and the length of its string in the pool. The entries are
+ * kept in a two level sparse table of 256 entry blocks, the blocks with no mapped char are shared, so the table takes
+ * only a few kilobytes even if it maps chars far in the BMP. The equal strings are stored in the pool only once.
+ * <p>
+ * The table is immutable and thread safe.
+ */
+public class StringTable {
+    static final int BLOCK_BITS = 8;
+    static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    // the entry is the pool offset shifted by the length bits
+    static final int LENGTH_BITS = 8;
+    static final int MAX_LENGTH = (1 << LENGTH_BITS) - 1;
+    private static final int[] EMPTY_BLOCK = new int[BLOCK_SIZE];
+
+    private final int[][] blocks;
+    private final char[] pool;
+    private final int size;
+    private final CodePointTable supplementary;
+
+    /**
+     * Creates a table from the given String table.
+     *
+     * @param table the required String table, the null values are not mapped
+     * @throws IllegalArgumentException If a mapped string is empty or longer than {@link #MAX_LENGTH} chars.
+     */
+    public StringTable(String[] table) {
+        this(table, CodePointTable.EMPTY);
+    }
+
+    /**
+     * Creates a table from the given String table and the table of the supplementary code points.
+     */
+    StringTable(String[] table, CodePointTable supplementary) {
+        this.supplementary = supplementary;
+        this.size = table.length;
+        this.blocks = new int[(size + BLOCK_MASK) >>> BLOCK_BITS][];
+        Map<String, Integer> offsets = new HashMap<>(256);
+        StringBuilder pool = new StringBuilder(1024);
+        for (int i = 0; i < size; i++) {
+            String value = table[i];
+            if (value == null) {
+                continue;
+            }
+            int length = value.length();
+            if (length == 0 || length > MAX_LENGTH) {
+                throw new IllegalArgumentException("Unable to map the " + i + " char to the '" + value
+                        + "', the length must be from 1 to " + MAX_LENGTH + "!");
+            }
+            Integer offset = offsets.get(value);
+            if (offset == null) {
+                offset = pool.length();
+                offsets.put(value, offset);
+                pool.append(value);
+            }
+            int[] block = blocks[i >>> BLOCK_BITS];
+            if (block == null) {
+                block = blocks[i >>> BLOCK_BITS] = new int[BLOCK_SIZE];
+            }
+            block[i & BLOCK_MASK] = offset << LENGTH_BITS | length;
+        }
+        for (int i = 0; i < blocks.length; i++) {
+            if (blocks[i] == null) {
+                blocks[i] = EMPTY_BLOCK;
+            }
+        }
+        this.pool = pool.toString().toCharArray();
+    }
+
+    /**
+     * Creates a table directly from the sorted code points and the pool of their strings.
+     *
+     * @param size          the number of the chars covered by the table
+     * @param codePoints    the sorted code points, only the ones below the size are mapped
+     * @param starts        the start offsets of the strings of the code points in the pool
+     * @param ends          the end offsets of the strings of the code points in the pool
+     * @param pool          the pool of the strings
+     * @param skipFrom      the start of the range of the code points that are not mapped, inclusive
+     * @param skipTo        the end of the range of the code points that are not mapped, exclusive
+     * @param supplementary the table of the supplementary code points
+     */
+    StringTable(int size, int[] codePoints, int[] starts, int[] ends, char[] pool, int skipFrom, int skipTo,
+            CodePointTable supplementary) {
+        this.supplementary = supplementary;
+        this.size = size;
+        this.blocks = new int[(size + BLOCK_MASK) >>> BLOCK_BITS][];
+        this.pool = pool;
+        for (int i = 0; i < codePoints.length && codePoints[i] < size; i++) {
+            int codePoint = codePoints[i];
+            int start = starts[i];
+            int length = ends[i] - start;
+            if (codePoint >= skipFrom && codePoint < skipTo) {
+                continue;
+            }
+            if (length > MAX_LENGTH) {
+                throw new IllegalArgumentException("Unable to map the " + codePoint + " char to the '"
+                        + new String(pool, start, length) + "', the length must be from 1 to " + MAX_LENGTH + "!");
+            }
+            int[] block = blocks[codePoint >>> BLOCK_BITS];
+            if (block == null) {
+                block = blocks[codePoint >>> BLOCK_BITS] = new int[BLOCK_SIZE];
+            }
+            block[codePoint & BLOCK_MASK] = start << LENGTH_BITS | length;
+        }
+        for (int i = 0; i < blocks.length; i++) {
+            if (blocks[i] == null) {
+                blocks[i] = EMPTY_BLOCK;
+            }
+        }
+    }
+
+    /**
+     * Returns the entry of the given char or 0 if the char is not mapped.
+     */
+    int entry(char value) {
+        return value < size ? blocks[value >>> BLOCK_BITS][value & BLOCK_MASK] : 0;
+    }
+
+    static int offset(int entry) {
+        return entry >>> LENGTH_BITS;
+    }
+
+    static int length(int entry) {
+        return entry & MAX_LENGTH;
+    }
+
+    /**
+     * Returns the pool of the mapped chars, it must not be modified.
+     */
+    char[] pool() {
+        return pool;
+    }
+
+    /**
+     * Returns the mapped string of the given char or null if the char is not mapped.
+     */
+    public String get(char value) {
+        int entry = entry(value);
+        return entry == 0 ? null : new String(pool, offset(entry), length(entry));
+    }
+
+    /**
+     * Returns the table of the supplementary code points, it is used only in the code point mode.
+     */
+    CodePointTable supplementary() {
+        return supplementary;
+    }
+
+    /**
+     * Returns the number of the chars covered by the table.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the approximate number of bytes taken by the table on a 64 bit JVM with compressed pointers.
+     */
+    public long getMemorySize() {
+        // the array headers take 16 bytes and all the objects are aligned to 8 bytes
+        long result = align(16 + 4L * blocks.length) + align(16 + 2L * pool.length);
+        for (int[] block : blocks) {
+            if (block != EMPTY_BLOCK) {
+                result += align(16 + 4L * BLOCK_SIZE);
+            }
+        }
+        return result;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+}
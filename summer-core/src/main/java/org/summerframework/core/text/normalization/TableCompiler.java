@@ -0,0 +1,77 @@
+package org.summerframework.core.text.normalization;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The build time compiler of the text normalization tables into the {@link CompiledTable binary format}. It compiles
+ * all the <code>*.table</code> files found under the source directory into the same relative locations under the
+ * target directory, so the compiled tables end up on the classpath next to the text ones.
+ * <p>
+ * Usage: <code>TableCompiler &lt;source directory&gt; &lt;target directory&gt;</code>
+ */
+public class TableCompiler {
+    private static final Logger log = LoggerFactory.getLogger(TableCompiler.class);
+
+    private final Path source;
+    private final Path target;
+
+    public TableCompiler(Path source, Path target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    /**
+     * Compiles all the tables and returns the number of the compiled tables.
+     *
+     * @throws IOException If a table can't be read or written.
+     */
+    public int compile() throws IOException {
+        List<Path> tables;
+        try (Stream<Path> files = Files.walk(source)) {
+            tables = files.filter(file -> file.getFileName().toString().endsWith(".table")).collect(Collectors.toList());
+        }
+        for (Path table : tables) {
+            Path compiled = target.resolve(source.relativize(table).toString() + CompiledTable.EXTENSION);
+            compile(table, compiled);
+        }
+        return tables.size();
+    }
+
+    /**
+     * Compiles the given text table into the given compiled table.
+     *
+     * @throws IOException If the table can't be read or written.
+     */
+    static void compile(Path table, Path compiled) throws IOException {
+        // the char parser keeps all the lines in their order, so the compiled table serves both normalizers
+        CompiledTable result = new CharNormalizer.TableParser(new FileSystemResource(table.toFile())).getCompiledTable();
+        Files.createDirectories(compiled.getParent());
+        try (OutputStream out = Files.newOutputStream(compiled)) {
+            result.write(out);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("The '" + table + "' table compiled to the '" + compiled + "'");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: TableCompiler <source directory> <target directory>");
+            System.exit(1);
+        }
+        int count = new TableCompiler(Paths.get(args[0]), Paths.get(args[1])).compile();
+        log.info("Compiled " + count + " normalization tables to the '" + args[1] + "'");
+    }
+
+}
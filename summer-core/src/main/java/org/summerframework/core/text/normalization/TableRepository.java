@@ -0,0 +1,122 @@
+package org.summerframework.core.text.normalization;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The JVM wide repository of the loaded normalization tables. The tables are keyed by their kind and the hash of the
+ * content of their resource, so all the normalizers of all the factories share a single immutable instance of the
+ * same table, even if it is loaded from different locations. The repository references the tables weakly, a table is
+ * kept only as long as a normalizer uses it.
+ * <p>
+ * The repository is thread safe.
+ */
+final class TableRepository {
+    private static final Logger log = LoggerFactory.getLogger(TableRepository.class);
+
+    private static final ConcurrentMap<String, TableReference> tables = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    private TableRepository() {
+    }
+
+    /**
+     * Creates the table from the content of its resource.
+     */
+    interface Loader<T> {
+        T load(byte[] content) throws IOException;
+    }
+
+    /**
+     * Returns the shared table of the given resource, it is loaded by the given loader only if there is no table of the
+     * same kind and content yet.
+     *
+     * @param kind     the required kind of the table, the tables of different kinds are never shared
+     * @param resource the required resource of the table
+     * @param loader   the required loader of the table, it must always create a table of the same type for the kind
+     * @throws IOException If the resource can't be read or the loader fails.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T get(String kind, Resource resource, Loader<T> loader) throws IOException {
+        byte[] content;
+        try (InputStream in = resource.getInputStream()) {
+            content = StreamUtils.copyToByteArray(in);
+        }
+        String key = kind + ':' + DigestUtils.md5DigestAsHex(content);
+        expunge();
+        TableReference reference = tables.get(key);
+        Object result = reference == null ? null : reference.get();
+        if (result != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("The '" + resource.getDescription() + "' normalization table is shared");
+            }
+            return (T) result;
+        }
+        T loaded = loader.load(content);
+        // a concurrently loaded table wins if it is still referenced, so there is only one shared table
+        Object[] shared = new Object[1];
+        tables.compute(key, (k, current) -> {
+            Object table = current == null ? null : current.get();
+            if (table != null) {
+                shared[0] = table;
+                return current;
+            }
+            shared[0] = loaded;
+            return new TableReference(k, loaded);
+        });
+        return (T) shared[0];
+    }
+
+    /**
+     * Returns the number of the tables in the repository, including the ones not yet removed after being collected.
+     */
+    /**
+     * Returns true if the given resource is one of the given files, the resources that are not files never are.
+     *
+     * @param resource the required resource of a table, it doesn't have to exist
+     * @param files    the required absolute and normalized paths of the files
+     */
+    static boolean isAnyOf(Resource resource, Collection<Path> files) {
+        try {
+            return files.contains(resource.getFile().toPath().toAbsolutePath().normalize());
+        } catch (IOException | InvalidPathException e) {
+            return false;
+        }
+    }
+
+    static int size() {
+        expunge();
+        return tables.size();
+    }
+
+    // removes the entries of the collected tables
+    private static void expunge() {
+        TableReference reference;
+        while ((reference = (TableReference) queue.poll()) != null) {
+            tables.remove(reference.key, reference);
+        }
+    }
+
+    private static final class TableReference extends WeakReference<Object> {
+        private final String key;
+
+        private TableReference(String key, Object table) {
+            super(table, queue);
+            this.key = key;
+        }
+    }
+
+}
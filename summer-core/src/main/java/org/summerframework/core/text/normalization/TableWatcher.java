@@ -0,0 +1,247 @@
+package org.summerframework.core.text.normalization;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The watcher of the normalization tables on the file system. It reloads the tables of all the normalizers of the
+ * given factory whenever a <code>*.table</code> file under the watched directory is created, changed or deleted, so
+ * the tables are tuned without a redeploy. The factory has to load its tables from the directory, e.g. by the
+ * <code>file:</code> location.
+ * <p>
+ * The tables are reloaded by the watcher thread and swapped when they are loaded, so the normalization never waits for
+ * a reload. The changes of the tables coming within the quiet period are reloaded at once, but no longer than the
+ * maximum delay after the first change. Only the tables of the changed files are reloaded, all of them only if the
+ * events have been lost or a new directory has appeared. A compiled table next to a changed text table is compiled
+ * again and the one of a deleted text table is deleted, so it doesn't hide the change.
+ */
+public class TableWatcher implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(TableWatcher.class);
+
+    public static final long DEFAULT_QUIET_PERIOD = 200;
+    public static final long DEFAULT_MAX_DELAY = 2000;
+
+    private final Path directory;
+    private final TextNormalizerFactory factory;
+    private long quietPeriod = DEFAULT_QUIET_PERIOD;
+    private long maxDelay = DEFAULT_MAX_DELAY;
+    private int phase;
+    private volatile WatchService watchService;
+
+    public TableWatcher(Path directory, TextNormalizerFactory factory) {
+        Assert.notNull(directory, "Unable to watch the normalization tables, the directory is required!");
+        Assert.notNull(factory, "Unable to watch the normalization tables, the factory is required!");
+        this.directory = directory;
+        this.factory = factory;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (watchService != null) {
+            return;
+        }
+        WatchService service;
+        try {
+            service = directory.getFileSystem().newWatchService();
+            try {
+                register(service, directory);
+            } catch (IOException e) {
+                service.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to watch the normalization tables in the '" + directory + "'!", e);
+        }
+        watchService = service;
+        Thread thread = new Thread(() -> watch(service), "normalizer-table-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        if (log.isInfoEnabled()) {
+            log.info("Watching the normalization tables in the '" + directory + "'");
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            // the watcher thread ends as the service is closed
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("Unable to close the watch service of the '" + directory + "'!", e);
+        }
+        watchService = null;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return watchService != null;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return true;
+    }
+
+    @Override
+    public int getPhase() {
+        return phase;
+    }
+
+    public void setPhase(int phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * Sets the time in milliseconds to wait for more events before the tables are reloaded, 200 ms by default.
+     */
+    public void setQuietPeriod(long quietPeriod) {
+        Assert.isTrue(quietPeriod >= 0, "Unable to set the quiet period, it must not be negative!");
+        this.quietPeriod = quietPeriod;
+    }
+
+    /**
+     * Sets the maximum time in milliseconds from the first change of a table to the reload, 2 s by default. The tables
+     * are reloaded then even if they keep changing.
+     */
+    public void setMaxDelay(long maxDelay) {
+        Assert.isTrue(maxDelay >= 0, "Unable to set the maximum delay, it must not be negative!");
+        this.maxDelay = maxDelay;
+    }
+
+    private void watch(WatchService watchService) {
+        try {
+            for (; ; ) {
+                Changes changes = new Changes();
+                // the events of the other files neither start nor extend the quiet period
+                boolean changed;
+                do {
+                    changed = process(watchService, watchService.take(), changes);
+                } while (!changed);
+                long now = System.currentTimeMillis();
+                long deadline = now + maxDelay;
+                long quietEnd = now + quietPeriod;
+                long timeout;
+                while ((timeout = Math.min(quietEnd, deadline) - System.currentTimeMillis()) > 0) {
+                    WatchKey key = watchService.poll(timeout, TimeUnit.MILLISECONDS);
+                    if (key == null) {
+                        break;
+                    }
+                    if (process(watchService, key, changes)) {
+                        quietEnd = System.currentTimeMillis() + quietPeriod;
+                    }
+                }
+                reload(changes);
+            }
+        } catch (ClosedWatchServiceException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Stopped watching the normalization tables in the '" + directory + "'");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // returns true if a table has changed
+    private boolean process(WatchService watchService, WatchKey key, Changes changes) {
+        boolean result = false;
+        Path parent = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // the changed tables are unknown
+                changes.all = true;
+                result = true;
+                continue;
+            }
+            Path path = parent.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    register(watchService, path);
+                } catch (IOException e) {
+                    log.warn("Unable to watch the normalization tables in the '" + path + "'!", e);
+                }
+                // the tables may have been created before the directory is watched
+                changes.all = true;
+                result = true;
+            } else if (path.getFileName().toString().endsWith(".table")) {
+                updateCompiledTable(path, event.kind() == StandardWatchEventKinds.ENTRY_DELETE);
+                changes.tables.add(path.toAbsolutePath().normalize());
+                result = true;
+            }
+        }
+        key.reset();
+        return result;
+    }
+
+    private void updateCompiledTable(Path table, boolean deleted) {
+        Path compiled = table.resolveSibling(table.getFileName() + CompiledTable.EXTENSION);
+        try {
+            if (deleted) {
+                Files.deleteIfExists(compiled);
+            } else if (Files.exists(compiled)) {
+                TableCompiler.compile(table, compiled);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to update the compiled table of the '" + table + "'!", e);
+        }
+    }
+
+    private void reload(Changes changes) {
+        try {
+            if (changes.all) {
+                factory.reload();
+            } else {
+                factory.reload(changes.tables);
+            }
+            if (log.isInfoEnabled()) {
+                log.info("Reloaded the " + (changes.all ? "" : changes.tables.size() + " changed ")
+                        + "normalization tables of the '" + directory + "'");
+            }
+        } catch (RuntimeException e) {
+            log.error("Unable to reload the normalization tables of the '" + directory + "'!", e);
+        }
+    }
+
+    private static void register(WatchService watchService, Path directory) throws IOException {
+        List<Path> directories;
+        try (Stream<Path> files = Files.walk(directory)) {
+            directories = files.filter(Files::isDirectory).collect(Collectors.toList());
+        }
+        for (Path path : directories) {
+            path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        }
+    }
+
+    // the tables changed since the last reload
+    private static final class Changes {
+        private final Set<Path> tables = new HashSet<>();
+        private boolean all;
+    }
+
+}
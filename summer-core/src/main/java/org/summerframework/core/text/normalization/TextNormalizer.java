@@ -2,11 +2,24 @@ package org.summerframework.core.text.normalization;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.i18n.LocaleContextHolder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A text normalizer is an utility that converts character sequence to normalized values.
@@ -19,6 +32,253 @@ public interface TextNormalizer {
 
     String normalize(CharSequence text, Locale locale);
 
+    /**
+     * Returns the hash code of the given text normalized with the current locale.
+     *
+     * @see #normalizedHash(CharSequence, Locale)
+     */
+    default int normalizedHash(CharSequence text) {
+        return normalizedHash(text, LocaleContextHolder.getLocale());
+    }
+
+    /**
+     * Returns the hash code of the given text normalized with the given locale, it is the same as the hash code of the
+     * result of {@link #normalize(CharSequence, Locale)}. The implementations hash the normalized chars as they are
+     * normalized, so no String is created.
+     *
+     * @param text   the required text
+     * @param locale the required locale
+     */
+    default int normalizedHash(CharSequence text, Locale locale) {
+        return normalize(text, locale).hashCode();
+    }
+
+    /**
+     * Returns true if both the given texts are the same when normalized with the current locale.
+     *
+     * @see #normalizedEquals(CharSequence, CharSequence, Locale)
+     */
+    default boolean normalizedEquals(CharSequence a, CharSequence b) {
+        return normalizedEquals(a, b, LocaleContextHolder.getLocale());
+    }
+
+    /**
+     * Returns true if both the given texts are the same when normalized with the given locale. The implementations
+     * compare the normalized chars as they are normalized, so no String is created.
+     *
+     * @param a      the required first text
+     * @param b      the required second text
+     * @param locale the required locale
+     */
+    default boolean normalizedEquals(CharSequence a, CharSequence b, Locale locale) {
+        return normalize(a, locale).equals(normalize(b, locale));
+    }
+
+    /**
+     * Compares the given texts normalized with the current locale.
+     *
+     * @see #normalizedCompare(CharSequence, CharSequence, Locale)
+     */
+    default int normalizedCompare(CharSequence a, CharSequence b) {
+        return normalizedCompare(a, b, LocaleContextHolder.getLocale());
+    }
+
+    /**
+     * Compares the given texts normalized with the given locale lexicographically, the result is the same as of
+     * {@link String#compareTo(String)} of the normalized texts. The implementations compare the normalized chars as
+     * they are normalized, so no String is created.
+     *
+     * @param a      the required first text
+     * @param b      the required second text
+     * @param locale the required locale
+     */
+    default int normalizedCompare(CharSequence a, CharSequence b, Locale locale) {
+        return normalize(a, locale).compareTo(normalize(b, locale));
+    }
+
+    /**
+     * Reloads all the tables loaded so far from their resources, e.g. after they are changed on the file system. The
+     * normalization doesn't wait for the reload, it uses the previous tables until the new ones are swapped in. The
+     * normalizers without tables ignore it.
+     */
+    default void reload() {
+    }
+
+    /**
+     * Reloads only the loaded tables of the given files, e.g. the ones changed on the file system, the other tables are
+     * kept. A table of a file that was missing so far is loaded too. The normalizers that can't tell the files of their
+     * tables reload all of them.
+     *
+     * @param files the required absolute and normalized paths of the table files
+     */
+    default void reload(Collection<Path> files) {
+        reload();
+    }
+
+    /**
+     * Returns the number of the normalizations by their locales, so it shows which tables are actually used. Every
+     * normalization of a non-empty text is counted, including the ones of the {@link #bind(Locale) bound} functions,
+     * the warm up is not. The normalizers without tables count nothing.
+     */
+    default Map<Locale, Long> getUsages() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Returns the function normalizing the texts with the given locale. The implementations resolve their table only
+     * once, so the function is faster than {@link #normalize(CharSequence, Locale)} for the batches of the texts with
+     * the same locale. The function is thread safe.
+     *
+     * @param locale the required locale
+     */
+    default Function<CharSequence, String> bind(Locale locale) {
+        return text -> normalize(text, locale);
+    }
+
+    /**
+     * Normalizes all the given texts with the given locale into the results at the same indexes. The large batches are
+     * split across the common {@link ForkJoinPool}.
+     *
+     * @param texts   the required texts
+     * @param results the required results, at least as long as the texts
+     * @param locale  the required locale
+     * @throws IllegalArgumentException If there are less results than texts.
+     */
+    default void normalizeAll(CharSequence[] texts, String[] results, Locale locale) {
+        normalizeAll(texts, results, locale, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Normalizes all the given texts with the given locale into the results at the same indexes. The large batches are
+     * split across the given pool.
+     *
+     * @param texts   the required texts
+     * @param results the required results, at least as long as the texts
+     * @param locale  the required locale
+     * @param pool    the required pool
+     * @throws IllegalArgumentException If there are less results than texts.
+     */
+    default void normalizeAll(CharSequence[] texts, String[] results, Locale locale, ForkJoinPool pool) {
+        NormalizeAllTask.normalize(bind(locale), texts, results, pool);
+    }
+
+    /**
+     * Returns the stream of the given texts normalized with the given locale, the parallel stream is normalized in
+     * parallel. The throughput is logged on the debug level once the whole stream is normalized.
+     *
+     * @param texts  the required texts
+     * @param locale the required locale
+     */
+    default Stream<String> normalizeAll(Stream<? extends CharSequence> texts, Locale locale) {
+        return StreamSupport.stream(normalizeAll(texts.spliterator(), locale), texts.isParallel())
+                .onClose(texts::close);
+    }
+
+    /**
+     * Returns the spliterator of the given texts normalized with the given locale. The throughput is logged on the
+     * debug level once all the texts are normalized.
+     *
+     * @param texts  the required texts
+     * @param locale the required locale
+     */
+    default Spliterator<String> normalizeAll(Spliterator<? extends CharSequence> texts, Locale locale) {
+        return NormalizeAllTask.normalize(bind(locale), texts);
+    }
+
+    /**
+     * Loads the table of the given locale or the default table if no locale is given in advance, so the first
+     * normalization with the locale doesn't have to. The normalizers without tables ignore it.
+     *
+     * @param locale the optional locale
+     */
+    default void warmUp(Locale locale) {
+    }
+
+    /**
+     * Normalizes the given text with the current locale and appends the result to the given target.
+     *
+     * @param text   the required text
+     * @param target the required target
+     * @throws IOException If the target fails to append the result.
+     */
+    default void normalizeTo(CharSequence text, Appendable target) throws IOException {
+        normalizeTo(text, target, LocaleContextHolder.getLocale());
+    }
+
+    /**
+     * Normalizes the given text with the given locale and appends the result to the given target. The implementations
+     * append the normalized chars directly, so no intermediate String is created.
+     *
+     * @param text   the required text
+     * @param target the required target
+     * @param locale the required locale
+     * @throws IOException If the target fails to append the result.
+     */
+    default void normalizeTo(CharSequence text, Appendable target, Locale locale) throws IOException {
+        target.append(normalize(text, locale));
+    }
+
+    /**
+     * Normalizes the given range of the text with the current locale and writes the result to the given array.
+     *
+     * @param text   the required text
+     * @param start  the start of the range, inclusive
+     * @param end    the end of the range, exclusive
+     * @param target the required target array
+     * @param offset the position in the target array to write the result from
+     * @return the number of the written chars
+     * @throws IndexOutOfBoundsException If the target array is too small for the result.
+     */
+    default int normalizeTo(CharSequence text, int start, int end, char[] target, int offset) {
+        return normalizeTo(text, start, end, target, offset, LocaleContextHolder.getLocale());
+    }
+
+    /**
+     * Normalizes the given range of the text with the given locale and writes the result to the given array.
+     *
+     * @param text   the required text
+     * @param start  the start of the range, inclusive
+     * @param end    the end of the range, exclusive
+     * @param target the required target array
+     * @param offset the position in the target array to write the result from
+     * @param locale the required locale
+     * @return the number of the written chars
+     * @throws IndexOutOfBoundsException If the target array is too small for the result.
+     */
+    default int normalizeTo(CharSequence text, int start, int end, char[] target, int offset, Locale locale) {
+        String result = normalize(text.subSequence(start, end), locale);
+        result.getChars(0, result.length(), target, offset);
+        return result.length();
+    }
+
+    /**
+     * Normalizes the given text with the current locale and puts the result to the given buffer at its position.
+     *
+     * @param text   the required text
+     * @param target the required target buffer
+     * @throws java.nio.BufferOverflowException If there is not enough space in the buffer.
+     */
+    default void normalizeTo(CharSequence text, CharBuffer target) {
+        normalizeTo(text, target, LocaleContextHolder.getLocale());
+    }
+
+    /**
+     * Normalizes the given text with the given locale and puts the result to the given buffer at its position.
+     *
+     * @param text   the required text
+     * @param target the required target buffer
+     * @param locale the required locale
+     * @throws java.nio.BufferOverflowException If there is not enough space in the buffer.
+     */
+    default void normalizeTo(CharSequence text, CharBuffer target, Locale locale) {
+        try {
+            normalizeTo(text, (Appendable) target, locale);
+        } catch (IOException e) {
+            // a buffer never throws it
+            throw new UncheckedIOException(e);
+        }
+    }
+
     abstract class Line<T> implements Iterable<T> {
         private static final Logger log = LoggerFactory.getLogger(Line.class);
 
@@ -1,5 +1,11 @@
 package org.summerframework.core.text.normalization;
 
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * A normalizer factory that takes care for {@link TextNormalizer} management.
  */
@@ -7,8 +13,58 @@ public interface TextNormalizerFactory {
 
     void register(TextNormalizer normalizer, String name);
 
+    /**
+     * Removes the normalizer of the given name, so its tables may be garbage collected. The next request of the
+     * normalizer creates a new one. The factories that don't support it remove nothing.
+     *
+     * @param name the name of the normalizer, null for the root one
+     * @return the removed normalizer or null if there was none
+     */
+    default TextNormalizer unregister(String name) {
+        return null;
+    }
+
+    /**
+     * Returns the {@link TextNormalizer#getUsages() usages} of each registered normalizer by its name, the root
+     * normalizer has the null name. It shows which tables are actually hot, as the normalizations are counted by
+     * their locales.
+     */
+    default Map<String, Map<Locale, Long>> getUsages() {
+        return Collections.emptyMap();
+    }
+
     TextNormalizer normalizer();
 
     TextNormalizer normalizer(String name);
 
+    /**
+     * Reloads the tables of all the registered normalizers, the factories that don't support it do nothing.
+     *
+     * @see TextNormalizer#reload()
+     */
+    default void reload() {
+    }
+
+    /**
+     * Reloads only the tables of the given files of all the registered normalizers, the factories that can't tell the
+     * files of the tables reload all of them.
+     *
+     * @param files the required absolute and normalized paths of the table files
+     * @see TextNormalizer#reload(Collection)
+     */
+    default void reload(Collection<Path> files) {
+        reload();
+    }
+
+    /**
+     * Discovers all the normalization tables and loads them in parallel, so no normalization has to load a table.
+     * It returns after all the tables are loaded. The factories that don't support it load nothing.
+     *
+     * @param parallelism the maximum number of the threads loading the tables
+     * @return the number of the loaded tables
+     */
+    default int warmUp(int parallelism) {
+        return 0;
+    }
+
 }
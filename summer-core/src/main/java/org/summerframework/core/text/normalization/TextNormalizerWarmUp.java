@@ -0,0 +1,67 @@
+package org.summerframework.core.text.normalization;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.Assert;
+
+/**
+ * The {@link SmartLifecycle} bean warming up the normalizers of the {@link TextNormalizerFactory} at the application
+ * startup, so the first normalizations don't pay for loading of the tables. The startup waits until all the tables
+ * are loaded.
+ */
+public class TextNormalizerWarmUp implements SmartLifecycle {
+    private final TextNormalizerFactory factory;
+    private final int parallelism;
+    private int phase = Integer.MIN_VALUE;
+    private volatile boolean running;
+
+    public TextNormalizerWarmUp(TextNormalizerFactory factory) {
+        this(factory, Runtime.getRuntime().availableProcessors());
+    }
+
+    public TextNormalizerWarmUp(TextNormalizerFactory factory, int parallelism) {
+        Assert.notNull(factory, "Unable to warm up the normalizers, the factory is required!");
+        Assert.isTrue(parallelism > 0, "Unable to warm up the normalizers, the parallelism must be positive!");
+        this.factory = factory;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public void start() {
+        factory.warmUp(parallelism);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return true;
+    }
+
+    @Override
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Sets the phase of the warm up, the lowest one by default so the tables are loaded before other beans start.
+     */
+    public void setPhase(int phase) {
+        this.phase = phase;
+    }
+
+}
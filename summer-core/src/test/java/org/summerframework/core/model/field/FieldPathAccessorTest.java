@@ -0,0 +1,165 @@
+package org.summerframework.core.model.field;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FieldPathAccessorTest {
+
+    private Map<String, Object> createOrder() {
+        Map<String, Object> order = new LinkedHashMap<>();
+        List<Object> items = new ArrayList<>();
+        items.add(new Item("apple", 10));
+        items.add(new Item("pear", 20));
+        order.put("items", items);
+        order.put("codes", new String[]{"A", "B"});
+        return order;
+    }
+
+    @Test
+    public void shouldReturnValue_whenDirectPathIsGiven() {
+        Map<String, Object> order = createOrder();
+        assertEquals("pear", FieldPathAccessor.of(FieldPath.valueOf("items[1].name")).get(order));
+        assertEquals(10, FieldPathAccessor.of(FieldPath.valueOf("items[0].price")).get(order));
+        assertEquals("B", FieldPathAccessor.of(FieldPath.valueOf("codes[1]")).get(order));
+        assertNull(FieldPathAccessor.of(FieldPath.valueOf("items[2].name")).get(order));
+        assertNull(FieldPathAccessor.of(FieldPath.valueOf("customer.name")).get(order));
+        assertSame(FieldPathAccessor.of(FieldPath.valueOf("codes[1]")), FieldPathAccessor.of(FieldPath.valueOf("codes[1]")));
+    }
+
+    @Test
+    public void shouldChangeValue_whenSetOrRemoveIsCalled() {
+        Map<String, Object> order = createOrder();
+        FieldPathAccessor.of(FieldPath.valueOf("items[1].price")).set(order, 25);
+        FieldPathAccessor.of(FieldPath.valueOf("items[0].name")).set(order, "plum");
+        FieldPathAccessor.of(FieldPath.valueOf("items[2]")).set(order, new Item("kiwi", 5));
+        FieldPathAccessor.of(FieldPath.valueOf("note")).set(order, "fragile");
+        assertEquals(Arrays.asList(new Item("plum", 10), new Item("pear", 25), new Item("kiwi", 5)), order.get("items"));
+        assertEquals("fragile", order.get("note"));
+
+        assertEquals(new Item("plum", 10), FieldPathAccessor.of(FieldPath.valueOf("items[0]")).remove(order));
+        assertEquals("fragile", FieldPathAccessor.of(FieldPath.valueOf("note")).remove(order));
+        assertEquals(2, ((List<?>) order.get("items")).size());
+        assertFalse(order.containsKey("note"));
+    }
+
+    @Test
+    public void shouldAppendItem_whenIndexIsNextToLastItem() {
+        Map<String, Object> order = createOrder();
+        FieldPathAccessor.of(FieldPath.valueOf("items[2]")).set(order, new Item("kiwi", 5));
+        assertEquals(3, ((List<?>) order.get("items")).size());
+        try {
+            FieldPathAccessor.of(FieldPath.valueOf("items[4]")).set(order, new Item("plum", 5));
+            fail("The item is set out of the range of the List!");
+        } catch (FieldPathException e) {
+            assertEquals(3, ((List<?>) order.get("items")).size());
+        }
+        try {
+            FieldPathAccessor.of(FieldPath.valueOf("codes[2]")).set(order, "C");
+            fail("The item is appended to an array!");
+        } catch (FieldPathException e) {
+            assertEquals(2, ((String[]) order.get("codes")).length);
+        }
+    }
+
+    @Test(expected = FieldPathException.class)
+    public void shouldThrowException_whenParentIsMissing() {
+        FieldPathAccessor.of(FieldPath.valueOf("customer.name")).set(createOrder(), "John");
+    }
+
+    @Test
+    public void shouldIterateValues_whenWildcardPathIsGiven() {
+        Iterator<Object> iterator = FieldPathAccessor.of(FieldPath.valueOf("items[*].name")).iterator(createOrder());
+        List<Object> names = new ArrayList<>();
+        iterator.forEachRemaining(names::add);
+        assertEquals(Arrays.asList("apple", "pear"), names);
+
+        List<Object> values = new ArrayList<>();
+        FieldPathAccessor.of(FieldPath.valueOf("items[1].*")).iterator(createOrder()).forEachRemaining(values::add);
+        assertEquals(Arrays.asList("pear", 20), values);
+    }
+
+    @Test
+    public void shouldKeepSharedAccessor_whenOtherPathsAreChurned() {
+        FieldPath path = FieldPath.valueOf("items[0].name");
+        FieldPathAccessor hot = FieldPathAccessor.of(path);
+        FieldPathAccessor cold = FieldPathAccessor.of(FieldPath.valueOf("items[0].price"));
+        for (int i = 0; i < 5000; i++) {
+            FieldPathAccessor.of(FieldPath.valueOf("churn[" + i + "]"));
+            assertSame(hot, FieldPathAccessor.of(path));
+        }
+        // the cache is bounded, so the accessors not used recently are replaced
+        assertNotSame(cold, FieldPathAccessor.of(FieldPath.valueOf("items[0].price")));
+    }
+
+    @Test
+    public void shouldRethrowError_whenGetterFails() {
+        FieldPathAccessor accessor = FieldPathAccessor.of(FieldPath.valueOf("value"));
+        try {
+            accessor.get(new Failing(new IllegalStateException("failed")));
+            fail("The failure of the getter is ignored!");
+        } catch (FieldPathException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        try {
+            accessor.get(new Failing(new AssertionError("failed")));
+            fail("The error of the getter is ignored!");
+        } catch (AssertionError e) {
+            assertEquals("failed", e.getMessage());
+        }
+    }
+
+    public static class Failing {
+        private final Throwable failure;
+
+        Failing(Throwable failure) {
+            this.failure = failure;
+        }
+
+        public Object getValue() throws Throwable {
+            throw failure;
+        }
+    }
+
+    public static class Item {
+        private String name;
+        private int price;
+
+        Item(String name, int price) {
+            this.name = name;
+            this.price = price;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Item && ((Item) o).name.equals(name) && ((Item) o).price == price;
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode() * 31 + price;
+        }
+    }
+
+}
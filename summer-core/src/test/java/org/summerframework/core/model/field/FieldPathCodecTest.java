@@ -0,0 +1,109 @@
+package org.summerframework.core.model.field;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.summerframework.util.DurationUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@Slf4j
+public class FieldPathCodecTest {
+    private final FieldPathCodec codec = new FieldPathCodec("order", "items", "price");
+
+    @Test
+    public void shouldDecodeSamePath_whenPathIsEncoded() throws IOException {
+        FieldPath path = FieldPath.valueOf("order.items[300].*.grossPrice");
+        byte[] encoded = codec.encode(path);
+        assertEquals(codec.encodedSize(path), encoded.length);
+        assertEquals(path, codec.decode(ByteBuffer.wrap(encoded)));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        codec.encode(path, new DataOutputStream(bytes));
+        assertEquals(path, codec.decode(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    @Test
+    public void shouldComparePaths_whenEncodedPathIsGiven() {
+        ByteBuffer buffer = ByteBuffer.wrap(codec.encode(FieldPath.valueOf("order.items[3].grossPrice")));
+        assertTrue(codec.isEqual(buffer, FieldPath.valueOf("order.items[3].grossPrice")));
+        assertFalse(codec.isEqual(buffer, FieldPath.valueOf("order.items[3].netPrice")));
+        assertFalse(codec.isEqual(buffer, FieldPath.valueOf("order.items[4].grossPrice")));
+        assertFalse(codec.isEqual(buffer, FieldPath.valueOf("order.items[3]")));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void shouldThrowFieldPathException_whenEncodedPathIsMalformed() throws IOException {
+        byte[] encoded = codec.encode(FieldPath.valueOf("order.items[3].grossPrice"));
+        // truncated
+        assertMalformed(Arrays.copyOf(encoded, encoded.length - 1));
+        // the number of the elements exceeds the bytes
+        assertMalformed(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0x00});
+        // the number of the elements is negative
+        assertMalformed(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01});
+        // the number of the literal chars exceeds the bytes
+        assertMalformed(new byte[]{0x01, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07});
+        // the literal name is empty
+        assertMalformed(new byte[]{0x01, 0x02});
+        // the name is not in the dictionary
+        assertMalformed(new byte[]{0x01, 0x0D});
+        try {
+            codec.isEqual(ByteBuffer.wrap(new byte[]{0x01, 0x0D}), FieldPath.valueOf("order"));
+            fail("The path is compared to a name that is not in the dictionary!");
+        } catch (FieldPathException e) {
+            // expected
+        }
+    }
+
+    private void assertMalformed(byte[] encoded) throws IOException {
+        try {
+            codec.decode(ByteBuffer.wrap(encoded));
+            fail("The " + Arrays.toString(encoded) + " path is decoded from the buffer!");
+        } catch (FieldPathException e) {
+            // expected
+        }
+        try {
+            codec.decode(new DataInputStream(new ByteArrayInputStream(encoded)));
+            fail("The " + Arrays.toString(encoded) + " path is decoded from the input!");
+        } catch (FieldPathException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldEncodeCompactly_whenDictionaryNamesAreUsed() {
+        String text = "order.items[3].price";
+        FieldPath path = FieldPath.parse(text);
+        byte[] encoded = codec.encode(path);
+        assertEquals(5, encoded.length);
+        int count = 100000;
+        long time = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            codec.decode(ByteBuffer.wrap(encoded));
+        }
+        long decoding = System.nanoTime() - time;
+        time = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            FieldPath.parse(text);
+        }
+        long parsing = System.nanoTime() - time;
+        if (log.isDebugEnabled()) {
+            log.debug("The '" + text + "' path is encoded to " + encoded.length + " bytes, it took " +
+                    DurationUtils.microDuration(decoding) + " to decode and " + DurationUtils.microDuration(parsing) +
+                    " to parse it " + count + " times");
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.summerframework.core.model.field;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FieldPathPoolTest {
+
+    @Test
+    public void shouldReturnSharedInstance_whenSamePathIsGiven() {
+        FieldPathPool pool = new FieldPathPool(16);
+        FieldPath path = pool.valueOf("order.items[3].price");
+        assertSame(path, pool.valueOf("order.items[3].price"));
+        assertSame(path, pool.canonical(new FieldPath(path.elements())));
+        assertEquals(2, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+        assertNull(pool.valueOf(""));
+    }
+
+    @Test
+    public void shouldReturnCanonicalPath_whenNavigatingPaths() {
+        FieldPath path = FieldPath.valueOf("order.items[3].price");
+        assertSame(path, FieldPath.valueOf("order.items[3]").child("price"));
+        assertEquals(path.parent(), FieldPath.valueOf("order.items[3]"));
+        assertSame(path, FieldPath.valueOf("order.items[3].amount").sibling("price"));
+    }
+
+    @Test
+    public void shouldEvictPaths_whenMaxSizeIsExceeded() {
+        FieldPathPool pool = new FieldPathPool(64);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("items[" + i + "]", pool.valueOf("items[" + i + "]").value());
+        }
+        assertTrue(pool.size() <= pool.getMaxSize());
+        assertTrue(pool.getEvictionCount() > 0);
+        assertEquals(1000, pool.getMissCount());
+    }
+
+    @Test
+    public void shouldKeepReferencedPath_whenOtherPathsAreChurned() {
+        FieldPathPool pool = new FieldPathPool(64);
+        FieldPath hot = pool.valueOf("order.price");
+        for (int i = 0; i < 1000; i++) {
+            pool.valueOf("items[" + i + "]");
+            assertSame(hot, pool.valueOf("order.price"));
+        }
+        assertEquals(1000, pool.getHitCount());
+        // the hand continues where it stopped, so the recently added paths survive while the oldest are evicted
+        long misses = pool.getMissCount();
+        pool.valueOf("items[999]");
+        assertEquals(misses, pool.getMissCount());
+        pool.valueOf("items[0]");
+        assertEquals(misses + 1, pool.getMissCount());
+    }
+
+}
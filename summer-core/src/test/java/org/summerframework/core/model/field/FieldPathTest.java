@@ -6,6 +6,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class FieldPathTest {
@@ -70,4 +71,83 @@ public class FieldPathTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldParseIndexedPath_whenConsecutiveArraysAreGiven() {
+        FieldPath path = FieldPath.valueOf("matrix[1][20].value");
+        assertNotNull(path);
+        assertEquals(4, path.length());
+        assertEquals(1, path.elements()[1].value());
+        assertEquals(20, path.elements()[2].value());
+        assertEquals("matrix[1][20].value", path.value());
+
+        assertEquals(20, path.elementAt(2).index());
+        assertEquals(-1, path.tail().index());
+        assertSame(path.elementAt(2), FieldPath.element(20));
+        assertEquals(FieldPath.valueOf("matrix[1][5]"), path.parent().sibling(FieldPath.element(5)));
+
+        path = FieldPath.valueOf("items[99999999999]");
+        assertEquals("99999999999", path.tail().value());
+    }
+
+    @Test
+    public void shouldKeepPath_whenGivenElementsAreChanged() {
+        PathElement<?>[] elements = FieldPath.valueOf("order.items[3]").elements();
+        FieldPath path = new FieldPath(elements);
+        int hashCode = path.hashCode();
+        elements[2] = FieldPath.element(4);
+        assertEquals(FieldPath.valueOf("order.items[3]"), path);
+        assertEquals(hashCode, path.hashCode());
+        assertEquals(3, path.tail().index());
+    }
+
+    @Test(expected = FieldPathException.class)
+    public void shouldThrowException_whenArrayStartIsMissing() {
+        FieldPath.valueOf("items0]");
+    }
+
+    @Test(expected = FieldPathException.class)
+    public void shouldThrowException_whenArrayEndIsMissing() {
+        FieldPath.valueOf("items[");
+    }
+
+    @Test(expected = FieldPathException.class)
+    public void shouldThrowException_whenArrayIndexIsEmpty() {
+        FieldPath.valueOf("items[].price");
+    }
+
+    @Test(expected = FieldPathException.class)
+    public void shouldThrowException_whenArrayIndexIsSigned() {
+        FieldPath.valueOf("items[-1]");
+    }
+
+    @Test
+    public void shouldParseRange_whenPathIsEmbeddedInText() {
+        String text = "/api?fields=order.items[3].price&limit=10";
+        int start = text.indexOf('=') + 1;
+        FieldPath path = FieldPath.valueOf(text, start, text.indexOf('&'));
+        assertEquals(FieldPath.valueOf("order.items[3].price"), path);
+        assertNull(FieldPath.valueOf(text, start, start));
+    }
+
+    @Test
+    public void shouldShareElements_whenNavigatingToParentsAndSubPaths() {
+        FieldPath path = new FieldPath(FieldPath.valueOf("order.items[*].prices.purchase").elements());
+        int hashCode = path.hashCode();
+        FieldPath parent = path.parent();
+        assertEquals(new FieldPath("order", "items", "*", "prices"), parent.subPath(0, 2).append(parent.subPath(2, 4)));
+        assertEquals(FieldPath.valueOf("order.items[*].prices").hashCode(), parent.hashCode());
+        assertFalse(parent.isDirect());
+        assertTrue(parent.prefix(2).isDirect());
+        assertEquals("items.*.prices", parent.subPath(1, 4).value());
+        assertEquals(FieldPath.valueOf("items"), path.subPath(1, 2));
+        assertEquals(hashCode, parent.child("purchase").hashCode());
+
+        int depth = 0;
+        for (FieldPath current = path; current != null; current = current.parent()) {
+            assertEquals(path.prefix(current.length()), current);
+            depth++;
+        }
+        assertEquals(5, depth);
+    }
+
+}
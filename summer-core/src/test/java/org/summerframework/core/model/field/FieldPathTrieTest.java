@@ -0,0 +1,62 @@
+package org.summerframework.core.model.field;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FieldPathTrieTest {
+
+    private FieldPathTrie<String> createTrie() {
+        FieldPathTrie<String> trie = new FieldPathTrie<>();
+        trie.put(FieldPath.valueOf("order"), "order");
+        trie.put(FieldPath.valueOf("order.items[*].price"), "anyPrice");
+        trie.put(FieldPath.valueOf("order.items[0].price"), "firstPrice");
+        trie.put(FieldPath.valueOf("order.*.price"), "price");
+        trie.put(FieldPath.valueOf("customer.password"), "password");
+        return trie;
+    }
+
+    @Test
+    public void shouldReturnMatchingValues_whenPathIsGiven() {
+        FieldPathTrie<String> trie = createTrie();
+        assertEquals(5, trie.size());
+        assertEquals(Arrays.asList("firstPrice", "anyPrice"), trie.match(FieldPath.valueOf("order.items[0].price")));
+        assertEquals(Collections.singletonList("anyPrice"), trie.match(FieldPath.valueOf("order.items[1].price")));
+        assertEquals(Collections.singletonList("price"), trie.match(FieldPath.valueOf("order.total.price")));
+        assertTrue(trie.match(FieldPath.valueOf("order.items")).isEmpty());
+        assertTrue(trie.match(FieldPath.valueOf("customer.name")).isEmpty());
+    }
+
+    @Test
+    public void shouldReturnPrefixValues_whenDescendantPathIsGiven() {
+        FieldPathTrie<String> trie = createTrie();
+        assertEquals(Arrays.asList("order", "anyPrice"), trie.matchPrefixes(FieldPath.valueOf("order.items[2].price.amount")));
+        assertEquals(Collections.singletonList("password"), trie.matchPrefixes(FieldPath.valueOf("customer.password.hash")));
+        assertEquals(Arrays.asList("firstPrice", "anyPrice"), trie.match(FieldPath.valueOf("order.*[0].price")));
+    }
+
+    @Test
+    public void shouldReturnShorterPrefixesFirst_whenPatternsOverlap() {
+        FieldPathTrie<String> trie = new FieldPathTrie<>();
+        trie.put(FieldPath.valueOf("a.b.c"), "abc");
+        trie.put(FieldPath.valueOf("a.*"), "any");
+        trie.put(FieldPath.valueOf("a.b"), "ab");
+        trie.put(FieldPath.valueOf("a"), "a");
+        assertEquals(Arrays.asList("a", "ab", "any", "abc"), trie.matchPrefixes(FieldPath.valueOf("a.b.c.d")));
+    }
+
+    @Test
+    public void shouldRemoveValue_whenPatternIsGiven() {
+        FieldPathTrie<String> trie = createTrie();
+        FieldPath pattern = FieldPath.valueOf("order.items[*].price");
+        assertEquals(Collections.singletonList("anyPrice"), trie.get(pattern));
+        assertTrue(trie.remove(pattern, "anyPrice"));
+        assertTrue(trie.get(pattern).isEmpty());
+        assertEquals(4, trie.size());
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.summerframework.core.model.field;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FieldPathWalkerTest {
+
+    private Map<String, Object> createOrder() {
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("id", 7);
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", "item" + i);
+            item.put("prices", Arrays.asList(i * 10, i * 10 + 5));
+            items.add(item);
+        }
+        order.put("items", items);
+        order.put("tags", new ArrayList<>());
+        return order;
+    }
+
+    @Test
+    public void shouldVisitAllLeaves_whenNoFilterIsGiven() {
+        List<String> events = new ArrayList<>();
+        assertTrue(new FieldPathWalker().walk(createOrder(), (cursor, value) -> events.add(cursor + "=" + value)));
+        assertEquals(Arrays.asList("id=7", "items[0].name=item0", "items[0].prices[0]=0", "items[0].prices[1]=5",
+                "items[1].name=item1", "items[1].prices[0]=10", "items[1].prices[1]=15"), events);
+    }
+
+    @Test
+    public void shouldCreatePath_whenSnapshotIsRequested() {
+        List<FieldPath> paths = new ArrayList<>();
+        new FieldPathWalker().walk(createOrder(), (cursor, value) -> paths.add(cursor.toPath()));
+        assertEquals(FieldPath.valueOf("id"), paths.get(0));
+        assertEquals(FieldPath.valueOf("items[1].prices[0]"), paths.get(5));
+        assertEquals(FieldPath.valueOf("items[1].prices[0]").hashCode(), paths.get(5).hashCode());
+
+        new FieldPathWalker().walk("scalar", (cursor, value) -> {
+            assertEquals(0, cursor.depth());
+            assertNull(cursor.toPath());
+            return true;
+        });
+    }
+
+    @Test
+    public void shouldStopWalk_whenVisitorReturnsFalse() {
+        List<Object> values = new ArrayList<>();
+        assertFalse(new FieldPathWalker().walk(createOrder(), (cursor, value) -> values.add(value) && values.size() < 3));
+        assertEquals(Arrays.asList(7, "item0", 0), values);
+    }
+
+    @Test
+    public void shouldSkipSubtrees_whenFilterRejectsThem() {
+        FieldPath excluded = FieldPath.valueOf("items.*.prices");
+        List<String> events = new ArrayList<>();
+        new FieldPathWalker(cursor -> !cursor.startsWith(excluded)).walk(createOrder(), (cursor, value) ->
+                events.add(cursor.toString()));
+        assertEquals(Arrays.asList("id", "items[0].name", "items[1].name"), events);
+
+        FieldPath pattern = FieldPath.valueOf("items[1].prices[1]");
+        List<Object> matched = new ArrayList<>();
+        new FieldPathWalker().walk(createOrder(), (cursor, value) -> !cursor.matches(pattern) || !matched.add(value));
+        assertEquals(Arrays.asList(15), matched);
+    }
+
+    @Test
+    public void shouldThrowException_whenKeyIsNotFieldName() {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("", 1);
+        document.put("*", 2);
+        document.put("name", 3);
+        List<String> events = new ArrayList<>();
+        assertTrue(new FieldPathWalker().walk(document, (cursor, value) -> {
+            try {
+                return events.add(cursor.toPath() + "=" + value);
+            } catch (FieldPathException e) {
+                return events.add("'" + cursor + "' failed");
+            }
+        }));
+        assertEquals(Arrays.asList("'' failed", "'*' failed", "name=3"), events);
+    }
+
+}
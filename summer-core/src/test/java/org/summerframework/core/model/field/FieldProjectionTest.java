@@ -0,0 +1,70 @@
+package org.summerframework.core.model.field;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FieldProjectionTest {
+
+    private static Map<String, Object> map(Object... entries) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < entries.length; i += 2) {
+            result.put((String) entries[i], entries[i + 1]);
+        }
+        return result;
+    }
+
+    private Map<String, Object> createOrder() {
+        return map(
+                "id", 1,
+                "customer", map("name", "John", "password", "secret"),
+                "items", Arrays.asList(map("name", "apple", "price", 10), map("name", "pear", "price", 20))
+        );
+    }
+
+    @Test
+    public void shouldRetainIncludedPaths_whenIncludesAreGiven() {
+        FieldProjection projection = FieldProjection.including(FieldPath.valueOf("id"),
+                FieldPath.valueOf("items[*].price"), FieldPath.valueOf("customer"));
+        Map<String, Object> order = createOrder();
+        Object expected = map(
+                "id", 1,
+                "customer", order.get("customer"),
+                "items", Arrays.asList(map("price", 10), map("price", 20))
+        );
+        Map<?, ?> actual = (Map<?, ?>) projection.project(order);
+        assertEquals(expected, actual);
+        assertSame(order.get("customer"), actual.get("customer"));
+    }
+
+    @Test
+    public void shouldRemoveExcludedPaths_whenExcludesAreGiven() {
+        FieldProjection projection = new FieldProjection(
+                Arrays.asList(FieldPath.valueOf("customer"), FieldPath.valueOf("items[1]")),
+                Arrays.asList(FieldPath.valueOf("*.password"), FieldPath.valueOf("items[*].name")));
+        Object expected = map(
+                "customer", map("name", "John"),
+                "items", Collections.singletonList(map("price", 20))
+        );
+        assertEquals(expected, projection.project(createOrder()));
+        assertNull(FieldProjection.including(FieldPath.valueOf("total")).project(createOrder()));
+    }
+
+    @Test
+    public void shouldProjectAllDocuments_whenStreamIsGiven() {
+        FieldProjection projection = FieldProjection.excluding(FieldPath.valueOf("items"), FieldPath.valueOf("customer"));
+        List<Object> actual = projection.project(Stream.of(createOrder(), createOrder())).collect(Collectors.toList());
+        assertEquals(Arrays.asList(map("id", 1), map("id", 1)), actual);
+    }
+
+}
@@ -2,13 +2,33 @@ package org.summerframework.core.text.normalization;
 
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.summerframework.util.DurationUtils;
 
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Slf4j
 public class CharNormalizerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
 
     /**
      * Method: normalize(CharSequence text)
@@ -51,4 +71,439 @@ public class CharNormalizerTest {
         String actual = normalizer.normalize("ščřžýáíéúů ŠČŘŽÝÁÉÚŮ", cs_CZ);
         Assert.assertEquals(expected, actual);
     }
+
+    /**
+     * Method: normalize(CharSequence text, Locale locale) with unchanged and partially changed text
+     */
+    @Test
+    public void testNormalizeRetainedText() throws Exception {
+        CharNormalizer normalizer = new CharNormalizer("/META-INF/normalize/path/");
+        Locale cs_CZ = new Locale("cs", "CZ");
+        String unchanged = "simple-url-slug_2017.txt";
+        Assert.assertSame(unchanged, normalizer.normalize(unchanged, cs_CZ));
+        Assert.assertEquals("Cesky fajl.txt", normalizer.normalize("Český fájl.txt", cs_CZ));
+        Assert.assertEquals("soubor c", normalizer.normalize("soubor č", cs_CZ));
+        Assert.assertEquals("ab", normalizer.normalize("a\u0000b", cs_CZ));
+        Assert.assertEquals("Cesky fajl.txt", normalizer.normalize(new StringBuilder("Český fájl.txt"), cs_CZ));
+        Assert.assertEquals("Cesky fajl.txt", normalizer.normalize(CharBuffer.wrap("Český fájl.txt"), cs_CZ));
+    }
+
+    /**
+     * Method: normalize(CharSequence text, Locale locale) with long texts compared to the per char normalizeTo(...)
+     */
+    @Test
+    public void testNormalizeLongText() throws Exception {
+        String chars = "abcdefghijklmnopqrstuvwxyz0123456789-. ščřžýáíéúůŠČŘŽÝÁÉÚŮ\u4E00\u0000\uD835\uDC00\uD83D\uDE00\uDC00";
+        CharNormalizer[] normalizers = {new CharNormalizer("/META-INF/normalize/url/"),
+                new CharNormalizer("/META-INF/normalize/code-points/", true)};
+        Locale cs_CZ = new Locale("cs", "CZ");
+        Random random = new Random(17);
+        for (int length = 16; length <= 1 << 20; length <<= 4) {
+            // the mapped chars are sparse as in the usual texts
+            StringBuilder text = new StringBuilder(length);
+            while (text.length() < length) {
+                text.append(random.nextInt(20) == 0 ? chars.charAt(random.nextInt(chars.length()))
+                        : chars.charAt(random.nextInt(26)));
+            }
+            for (CharNormalizer normalizer : normalizers) {
+                StringBuilder expected = new StringBuilder(length);
+                normalizer.normalizeTo(text, expected, cs_CZ);
+                long time = System.nanoTime();
+                String actual = normalizer.normalize(text.toString(), cs_CZ);
+                time = System.nanoTime() - time;
+                Assert.assertEquals(expected.toString(), actual);
+                Assert.assertEquals(expected.toString(), normalizer.normalize(text, cs_CZ));
+                if (log.isDebugEnabled()) {
+                    log.debug("It took " + time / 1000 + " us to normalize text of " + length + " chars");
+                }
+            }
+        }
+    }
+
+    /**
+     * Method: normalizeTo(...) with the caller supplied targets
+     */
+    @Test
+    public void testNormalizeToTargets() throws Exception {
+        CharNormalizer normalizer = new CharNormalizer("/META-INF/normalize/path/");
+        Locale cs_CZ = new Locale("cs", "CZ");
+        StringBuilder builder = new StringBuilder("/files/");
+        normalizer.normalizeTo("Český fájl.txt", builder, cs_CZ);
+        Assert.assertEquals("/files/Cesky fajl.txt", builder.toString());
+
+        char[] chars = new char[16];
+        int count = normalizer.normalizeTo("x ščř x", 2, 5, chars, 1, cs_CZ);
+        Assert.assertEquals("scr", new String(chars, 1, count));
+
+        CharBuffer buffer = CharBuffer.allocate(16);
+        buffer.put('[');
+        normalizer.normalizeTo("Žluťoučký", buffer, cs_CZ);
+        buffer.flip();
+        Assert.assertEquals("[Zlutoucky", buffer.toString());
+    }
+
+    /**
+     * Method: normalize(CharSequence text, Locale locale) in the code point mode
+     */
+    @Test
+    public void testNormalizeCodePoints() throws Exception {
+        String text = "\uD835\uDC00\uD835\uDC01c\uD83D\uDE00\uD83D\uDE02\uD835á";
+        CharNormalizer normalizer = new CharNormalizer("/META-INF/normalize/code-points/", true);
+        Assert.assertEquals("ABcsa", normalizer.normalize(text, Locale.ENGLISH));
+        StringBuilder builder = new StringBuilder();
+        normalizer.normalizeTo(text, builder, Locale.ENGLISH);
+        Assert.assertEquals("ABcsa", builder.toString());
+        char[] chars = new char[text.length()];
+        Assert.assertEquals(2, normalizer.normalizeTo(text, 0, 4, chars, 0, Locale.ENGLISH));
+        // a pair split by the end of the range is a lone surrogate
+        Assert.assertEquals(1, normalizer.normalizeTo(text, 0, 3, chars, 0, Locale.ENGLISH));
+
+        CharNormalizer charNormalizer = new CharNormalizer("/META-INF/normalize/code-points/");
+        Assert.assertEquals("ca", charNormalizer.normalize(text, Locale.ENGLISH));
+
+        CharNormalizerFactory factory = new CharNormalizerFactory("/META-INF/normalize/");
+        factory.setCodePoints(true);
+        Assert.assertEquals("ABcsa", factory.normalizer("code-points").normalize(text, Locale.ENGLISH));
+    }
+
+    /**
+     * Method: warmUp(int parallelism)
+     */
+    @Test
+    public void testWarmUp() throws Exception {
+        CharNormalizerFactory factory = new CharNormalizerFactory("/META-INF/normalize/");
+        Map<String, Set<Locale>> tables = factory.discoverTables();
+        Assert.assertTrue(tables.get("url").contains(null));
+        Assert.assertTrue(tables.get("url").contains(new Locale("cs")));
+        Assert.assertTrue(tables.get("path-component").contains(null));
+        Assert.assertTrue(factory.warmUp(4) >= 8);
+        Assert.assertEquals("scrzyaieuuSCRZYAEUU", factory.normalizer("url").normalize("ščřžýáíéúůŠČŘŽÝÁÉÚŮ",
+                new Locale("cs", "CZ")));
+
+        TextNormalizerWarmUp warmUp = new TextNormalizerWarmUp(factory, 2);
+        Assert.assertFalse(warmUp.isRunning());
+        warmUp.start();
+        Assert.assertTrue(warmUp.isRunning());
+    }
+
+    /**
+     * Method: normalizer(String name) called concurrently
+     */
+    @Test
+    public void testNormalizerRegistry() throws Exception {
+        CharNormalizerFactory factory = new CharNormalizerFactory("/META-INF/normalize/");
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<TextNormalizer>> tasks = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> factory.normalizer("url"));
+            }
+            List<Future<TextNormalizer>> results = executor.invokeAll(tasks);
+            TextNormalizer normalizer = results.get(0).get();
+            for (Future<TextNormalizer> result : results) {
+                Assert.assertSame(normalizer, result.get());
+            }
+            // the lookups are not counted, only the normalizations by their locales
+            Assert.assertTrue(factory.getUsages().get("url").isEmpty());
+            Locale cs_CZ = new Locale("cs", "CZ");
+            normalizer.warmUp(Locale.ENGLISH);
+            normalizer.normalize("Čeština", cs_CZ);
+            Function<CharSequence, String> english = normalizer.bind(Locale.ENGLISH);
+            english.apply("English");
+            normalizer.reload();
+            english.apply("English");
+            Map<Locale, Long> usages = factory.getUsages().get("url");
+            Assert.assertEquals(Long.valueOf(1), usages.get(cs_CZ));
+            Assert.assertEquals(Long.valueOf(2), usages.get(Locale.ENGLISH));
+
+            TextNormalizer root = factory.normalizer();
+            Assert.assertTrue(factory.getUsages().containsKey(null));
+            // the empty name is not the root one
+            Assert.assertNotSame(root, factory.normalizer(""));
+            Assert.assertTrue(factory.getUsages().containsKey(""));
+            Assert.assertSame(root, factory.normalizer(null));
+            Assert.assertSame(normalizer, factory.unregister("url"));
+            Assert.assertNull(factory.unregister("url"));
+            Assert.assertFalse(factory.getUsages().containsKey("url"));
+            Assert.assertNotSame(normalizer, factory.normalizer("url"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Method: normalize(CharSequence text, Locale locale) of the caching normalizer
+     */
+    @Test
+    public void testCachingNormalizer() throws Exception {
+        TextNormalizer normalizer = new CharNormalizerFactory("/META-INF/normalize/").normalizer("url");
+        Locale cs_CZ = new Locale("cs", "CZ");
+        int overhead = CachingTextNormalizer.ENTRY_OVERHEAD;
+        CachingTextNormalizer caching = new CachingTextNormalizer(normalizer, 30 + 2 * overhead, 10);
+        String result = caching.normalize("Žluťoučký", cs_CZ);
+        Assert.assertEquals("Zlutoucky", result);
+        Assert.assertSame(result, caching.normalize(new StringBuilder("Žluťoučký"), cs_CZ));
+        Assert.assertEquals(1, caching.getHits());
+        Assert.assertEquals(1, caching.getMisses());
+        Assert.assertEquals(0.5, caching.getHitRate(), 0);
+        Assert.assertEquals(18 + overhead, caching.getWeight());
+
+        Assert.assertEquals("Zlutoucky-kun", caching.normalize("Žluťoučký kůň", cs_CZ));
+        Assert.assertEquals(1, caching.getBypasses());
+        Assert.assertEquals(1, caching.size());
+
+        // the referenced entry gets the second chance, so the other one is evicted
+        caching.normalize("ABCDEFGHIJ", cs_CZ);
+        caching.normalize("abcdefghij", cs_CZ);
+        Assert.assertEquals(1, caching.getEvictions());
+        Assert.assertEquals(28 + 2 * overhead, caching.getWeight());
+        Assert.assertSame(result, caching.normalize("Žluťoučký", cs_CZ));
+        // the locale is a part of the key
+        caching.normalize("abcdefghij", Locale.ENGLISH);
+        Assert.assertEquals(4, caching.getMisses());
+
+        caching.clear();
+        Assert.assertEquals(0, caching.size());
+        Assert.assertEquals(0, caching.getWeight());
+    }
+
+    /**
+     * Method: normalize(CharSequence text, Locale locale) of the caching normalizer racing with another thread
+     */
+    @Test
+    public void testCachingNormalizerSharesRacingResult() throws Exception {
+        CountDownLatch normalizing = new CountDownLatch(1);
+        CountDownLatch cached = new CountDownLatch(1);
+        CachingTextNormalizer caching = new CachingTextNormalizer(new TextNormalizer() {
+            @Override
+            public String normalize(CharSequence text) {
+                return normalize(text, null);
+            }
+
+            @Override
+            public String normalize(CharSequence text, Locale locale) {
+                // a new result each time
+                String result = new StringBuilder(text).append('!').toString();
+                normalizing.countDown();
+                try {
+                    cached.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return result;
+            }
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> late = executor.submit(() -> caching.normalize("a", Locale.ENGLISH));
+            normalizing.await();
+            cached.countDown();
+            String result = caching.normalize("a", Locale.ENGLISH);
+            Assert.assertEquals("a!", result);
+            // the thread losing the race returns the cached result, whichever thread has won
+            Assert.assertSame(caching.normalize("a", Locale.ENGLISH), late.get());
+            Assert.assertSame(caching.normalize("a", Locale.ENGLISH), result);
+            Assert.assertEquals(1, caching.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Method: reload() of the caching normalizer while a text is normalized
+     */
+    @Test
+    public void testCachingNormalizerConcurrentReload() throws Exception {
+        CountDownLatch normalizing = new CountDownLatch(1);
+        CountDownLatch reloaded = new CountDownLatch(1);
+        AtomicInteger version = new AtomicInteger(1);
+        CachingTextNormalizer caching = new CachingTextNormalizer(new TextNormalizer() {
+            @Override
+            public String normalize(CharSequence text) {
+                return normalize(text, null);
+            }
+
+            @Override
+            public String normalize(CharSequence text, Locale locale) {
+                String result = text + "-" + version.get();
+                normalizing.countDown();
+                try {
+                    reloaded.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return result;
+            }
+
+            @Override
+            public void reload() {
+                version.incrementAndGet();
+            }
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> result = executor.submit(() -> caching.normalize("a", Locale.ENGLISH));
+            normalizing.await();
+            caching.reload();
+            reloaded.countDown();
+            // the result of the previous table is returned, but it isn't cached
+            Assert.assertEquals("a-1", result.get());
+            Assert.assertEquals(0, caching.size());
+            Assert.assertEquals("a-2", caching.normalize("a", Locale.ENGLISH));
+            Assert.assertEquals("a-2", caching.normalize("a", Locale.ENGLISH));
+            Assert.assertEquals(1, caching.getHits());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Method: reload() of the tables on the file system
+     */
+    @Test
+    public void testReloadTables() throws Exception {
+        Path directory = folder.newFolder("normalize", "url").toPath();
+        Files.write(directory.resolve("default.table"), "00E1 x\n".getBytes("UTF-8"));
+        Path table = directory.resolve("cs.table");
+        Files.write(table, "00E1 a\n".getBytes("UTF-8"));
+        CharNormalizerFactory factory = new CharNormalizerFactory(directory.getParent().toUri().toString());
+        TextNormalizer normalizer = factory.normalizer("url");
+        Assert.assertEquals("a", normalizer.normalize("á", new Locale("cs", "CZ")));
+        Assert.assertEquals("x", normalizer.normalize("á", Locale.GERMAN));
+        Assert.assertEquals(2, factory.warmUp(1));
+
+        Files.write(table, "00E1 b\n".getBytes("UTF-8"));
+        Files.write(directory.resolve("de.table"), "00E1 d\n".getBytes("UTF-8"));
+        factory.reload();
+        Assert.assertEquals("b", normalizer.normalize("á", new Locale("cs", "CZ")));
+        Assert.assertEquals("d", normalizer.normalize("á", Locale.GERMAN));
+    }
+
+    /**
+     * Method: start() of the table watcher
+     */
+    @Test
+    public void testTableWatcher() throws Exception {
+        Path directory = folder.newFolder("normalize", "url").toPath();
+        Path table = directory.resolve("cs.table");
+        Files.write(table, "00E1 a\n".getBytes("UTF-8"));
+        // the compiled table is compiled again, so it doesn't hide the change
+        TableCompiler.compile(table, directory.resolve("cs.table" + CompiledTable.EXTENSION));
+        CharNormalizerFactory factory = new CharNormalizerFactory(directory.getParent().toUri().toString());
+        TextNormalizer normalizer = factory.normalizer("url");
+        Locale cs = new Locale("cs");
+        Assert.assertEquals("a", normalizer.normalize("á", cs));
+
+        TableWatcher watcher = new TableWatcher(directory.getParent(), factory);
+        watcher.setQuietPeriod(10);
+        watcher.start();
+        try {
+            Assert.assertTrue(watcher.isRunning());
+            Files.write(table, "00E1 b\n".getBytes("UTF-8"));
+            long timeout = System.currentTimeMillis() + 30000;
+            while (!"b".equals(normalizer.normalize("á", cs)) && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals("b", normalizer.normalize("á", cs));
+        } finally {
+            watcher.stop();
+        }
+        Assert.assertFalse(watcher.isRunning());
+    }
+
+    /**
+     * Method: start() of the table watcher whose tables keep changing within the quiet period
+     */
+    @Test
+    public void testTableWatcherMaxDelay() throws Exception {
+        Path directory = folder.newFolder("normalize", "url").toPath();
+        Path table = directory.resolve("cs.table");
+        Files.write(table, "00E1 a\n".getBytes("UTF-8"));
+        CharNormalizerFactory factory = new CharNormalizerFactory(directory.getParent().toUri().toString());
+        TextNormalizer normalizer = factory.normalizer("url");
+        Locale cs = new Locale("cs");
+        Assert.assertEquals("a", normalizer.normalize("á", cs));
+
+        TableWatcher watcher = new TableWatcher(directory.getParent(), factory);
+        // the quiet period never ends during the test, so the tables are reloaded by the maximum delay
+        watcher.setQuietPeriod(600000);
+        watcher.setMaxDelay(10);
+        watcher.start();
+        try {
+            Files.write(table, "00E1 b\n".getBytes("UTF-8"));
+            long timeout = System.currentTimeMillis() + 30000;
+            while (!"b".equals(normalizer.normalize("á", cs)) && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals("b", normalizer.normalize("á", cs));
+        } finally {
+            watcher.stop();
+        }
+    }
+
+    /**
+     * Method: reload(Collection files)
+     */
+    @Test
+    public void testReloadChangedTables() throws Exception {
+        Path directory = folder.newFolder("normalize", "url").toPath();
+        Path csTable = directory.resolve("cs.table");
+        Path enTable = directory.resolve("en.table");
+        Files.write(csTable, "00E1 a\n".getBytes("UTF-8"));
+        Files.write(enTable, "00E1 a\n".getBytes("UTF-8"));
+        CharNormalizerFactory factory = new CharNormalizerFactory(directory.getParent().toUri().toString());
+        TextNormalizer normalizer = factory.normalizer("url");
+        Locale cs = new Locale("cs");
+        Assert.assertEquals("a", normalizer.normalize("á", cs));
+        Assert.assertEquals("a", normalizer.normalize("á", Locale.ENGLISH));
+        // the German table doesn't exist yet, so the default one is used
+        Assert.assertEquals("", normalizer.normalize("á", Locale.GERMAN));
+
+        Files.write(csTable, "00E1 b\n".getBytes("UTF-8"));
+        Files.write(enTable, "00E1 b\n".getBytes("UTF-8"));
+        Path deTable = Files.write(directory.resolve("de.table"), "00E1 c\n".getBytes("UTF-8"));
+        factory.reload(Arrays.asList(csTable.toAbsolutePath().normalize(), deTable.toAbsolutePath().normalize()));
+        Assert.assertEquals("b", normalizer.normalize("á", cs));
+        Assert.assertEquals("a", normalizer.normalize("á", Locale.ENGLISH));
+        Assert.assertEquals("c", normalizer.normalize("á", Locale.GERMAN));
+    }
+
+    /**
+     * Method: normalize(CharSequence text, Locale locale) called concurrently
+     */
+    @Test
+    public void testNormalizeConcurrently() throws Exception {
+        Locale[] locales = {new Locale("cs", "CZ"), Locale.ENGLISH, Locale.GERMAN, new Locale("cs")};
+        for (int threads = 1; threads <= 64; threads <<= 2) {
+            CharNormalizer normalizer = new CharNormalizer("/META-INF/normalize/url/");
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                int count = 2000;
+                List<Callable<String>> tasks = new ArrayList<>(threads);
+                for (int t = 0; t < threads; t++) {
+                    Locale locale = locales[t % locales.length];
+                    tasks.add(() -> {
+                        String result = null;
+                        for (int i = 0; i < count; i++) {
+                            result = normalizer.normalize("ščřžýáíéúůŠČŘŽÝÁÉÚŮ", locale);
+                        }
+                        return result;
+                    });
+                }
+                long time = System.currentTimeMillis();
+                List<Future<String>> results = executor.invokeAll(tasks);
+                time = System.currentTimeMillis() - time;
+                for (Future<String> result : results) {
+                    Assert.assertEquals("scrzyaieuuSCRZYAEUU", result.get());
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("It took " + DurationUtils.milliDuration(time) + " to normalize text " + count * threads
+                            + " times in " + threads + " threads");
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package org.summerframework.core.text.normalization;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class TableCompilerTest {
+    private static final String[] TABLES = {"path/default", "path/cs", "url/default", "url/cs",
+            "url-component/default", "url-component/cs", "path-component/default", "path-component/cs"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldCompileTables_whenTextTablesAreGiven() throws Exception {
+        // the test resources have their own normalization tables, so the directory is resolved by a shipped table
+        Path source = new ClassPathResource("/META-INF/normalize/path/default.table").getFile().toPath().getParent()
+                .getParent();
+        Path target = folder.getRoot().toPath();
+        Assert.assertTrue(new TableCompiler(source, target).compile() >= TABLES.length);
+
+        for (String table : TABLES) {
+            Resource text = new ClassPathResource("/META-INF/normalize/" + table + ".table");
+            CompiledTable compiled = CompiledTable.read(new FileSystemResource(new File(folder.getRoot(), table + ".table")));
+            Assert.assertNotNull(table, compiled);
+            Assert.assertArrayEquals(table, new CharNormalizer.TableParser(text).getTable(), compiled.toChars());
+            String[] strings = new StringNormalizer.TableParser(text).getTable();
+            Assert.assertArrayEquals(table, strings, compiled.toStrings());
+            StringTable stringTable = compiled.toStringTable(false);
+            Assert.assertEquals(table, strings.length, stringTable.size());
+            for (int i = 0; i < strings.length; i++) {
+                Assert.assertEquals(table, strings[i], stringTable.get((char) i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldReadCompiledTable_whenItIsNextToTextTable() throws Exception {
+        Path table = folder.newFolder("normalize").toPath().resolve("default.table");
+        Files.write(table, "0041 A B C\n1D400 X\n".getBytes("UTF-8"));
+        new TableCompiler(table.getParent(), table.getParent()).compile();
+        // the text table is changed after the compilation
+        Files.write(table, "0041 a b c\n".getBytes("UTF-8"));
+
+        CompiledTable compiled = CompiledTable.read(new FileSystemResource(table.toFile()));
+        Assert.assertEquals('B', compiled.toChars()['B']);
+        Assert.assertEquals("X", compiled.toSupplementary(false).get(0x1D400));
+    }
+
+    @Test
+    public void shouldResolveLinesAsParsers_whenSpaceCommentIsLateAndOffsetIsDuplicate() throws Exception {
+        Path table = folder.newFolder("normalize").toPath().resolve("default.table");
+        Files.write(table, "0041 a b c\n# space=0042 0043\n0041 x\n1D400 X\n1D400 Y\n".getBytes("UTF-8"));
+        new TableCompiler(table.getParent(), table.getParent()).compile();
+        Resource text = new FileSystemResource(table.toFile());
+        CompiledTable compiled = CompiledTable.read(text);
+
+        // the char parser applies the lines in their order
+        CharNormalizer.TableParser charParser = new CharNormalizer.TableParser(text);
+        char[] chars = charParser.getTable();
+        Assert.assertEquals("x  ", new String(chars, 'A', 3));
+        Assert.assertArrayEquals(chars, compiled.toChars());
+        Assert.assertEquals("Y", charParser.getSupplementaryTable().get(0x1D400));
+        Assert.assertEquals("Y", compiled.toSupplementary(true).get(0x1D400));
+
+        // the string parser ignores the space comments and keeps the first line of an offset
+        StringNormalizer.TableParser stringParser = new StringNormalizer.TableParser(text);
+        String[] strings = stringParser.getTable();
+        Assert.assertEquals("a", strings['A']);
+        Assert.assertEquals("c", strings['C']);
+        Assert.assertArrayEquals(strings, compiled.toStrings());
+        Assert.assertEquals("X", stringParser.getSupplementaryTable().get(0x1D400));
+        Assert.assertEquals("X", compiled.toSupplementary(false).get(0x1D400));
+        Assert.assertEquals("X", compiled.toStringTable(true).supplementary().get(0x1D400));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldThrowException_whenCompiledTableIsCorrupted() throws Exception {
+        File table = folder.newFile("default.table");
+        Files.write(new File(folder.getRoot(), "default.table" + CompiledTable.EXTENSION).toPath(), new byte[20]);
+        CompiledTable.read(new FileSystemResource(table));
+    }
+
+}
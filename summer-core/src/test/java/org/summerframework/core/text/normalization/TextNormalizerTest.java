@@ -4,9 +4,28 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.FileCopyUtils;
 import org.summerframework.util.DurationUtils;
 
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * TextNormalizer Tester.
@@ -44,4 +63,210 @@ public class TextNormalizerTest {
         String actual = normalizer.normalize("ščřžýáíéěúůŠČŘŽÝÁÉĚÚŮĎďŤťŇňÓó");
         Assert.assertEquals(expected, actual);
     }
+
+    @Test
+    public void testNormalizeToTargets() throws Exception {
+        StringNormalizer normalizer = new StringNormalizer("/META-INF/normalize/url/");
+        Locale cs_CZ = new Locale("cs", "CZ");
+        StringBuilder builder = new StringBuilder("key:");
+        normalizer.normalizeTo("ščřžý", builder, cs_CZ);
+        Assert.assertEquals("key:scrzy", builder.toString());
+
+        char[] chars = new char[8];
+        int count = normalizer.normalizeTo("-ŠČŘ-", 1, 4, chars, 2, cs_CZ);
+        Assert.assertEquals("SCR", new String(chars, 2, count));
+
+        CharBuffer buffer = CharBuffer.allocate(8);
+        normalizer.normalizeTo("ĎďŤť", buffer, cs_CZ);
+        buffer.flip();
+        Assert.assertEquals("DdTt", buffer.toString());
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void testNormalizeToSmallBuffer() {
+        new StringNormalizer("/META-INF/normalize/url/").normalizeTo("ščřžý", CharBuffer.allocate(3), Locale.ENGLISH);
+    }
+
+    @Test
+    public void testStringTable() throws Exception {
+        String[] strings = new String[0x300];
+        strings['a'] = "a";
+        strings[0xE6] = "ae";
+        strings[0x2FF] = "a";
+        StringTable table = new StringTable(strings);
+        Assert.assertEquals(0x300, table.size());
+        Assert.assertEquals("a", table.get('a'));
+        Assert.assertEquals("ae", table.get((char) 0xE6));
+        Assert.assertEquals("a", table.get((char) 0x2FF));
+        Assert.assertNull(table.get('b'));
+        Assert.assertNull(table.get((char) 0x1FF));
+        Assert.assertNull(table.get((char) 0x300));
+
+        String[] parsed = new StringNormalizer.TableParser(new ClassPathResource("/META-INF/normalize/url/cs.table"))
+                .getTable();
+        table = new StringTable(parsed);
+        for (int i = 0; i < parsed.length; i++) {
+            Assert.assertEquals(parsed[i], table.get((char) i));
+        }
+        // the String array alone takes 4 bytes per entry
+        Assert.assertTrue(table.getMemorySize() < parsed.length);
+    }
+
+    @Test
+    public void testNormalizeCodePoints() throws Exception {
+        String text = "\uD835\uDC00\uD835\uDC1Bc\uD83D\uDE00\uD83D\uDE01\uD83D\uDE02\uDE00á";
+        StringNormalizer normalizer = new StringNormalizer("/META-INF/normalize/code-points/", true);
+        Assert.assertEquals("Abcsmilegrina", normalizer.normalize(text, Locale.ENGLISH));
+        StringBuilder builder = new StringBuilder();
+        normalizer.normalizeTo(text, builder, Locale.ENGLISH);
+        Assert.assertEquals("Abcsmilegrina", builder.toString());
+        char[] chars = new char[32];
+        int count = normalizer.normalizeTo(text, 4, 9, chars, 0, Locale.ENGLISH);
+        Assert.assertEquals("csmilegrin", new String(chars, 0, count));
+
+        Assert.assertEquals("ca", new StringNormalizer("/META-INF/normalize/code-points/").normalize(text,
+                Locale.ENGLISH));
+    }
+
+    @Test
+    public void testNormalizingReaderAndWriter() throws Exception {
+        // the pairs end up at all the positions of the small chunks
+        String text = "\uD835\uDC00\uD835\uDC1Bc\uD83D\uDE00á\uD83D\uDE01\uD83D\uDE02\uDE00ščř\uD83D\uDE00\uD83D";
+        TextNormalizer[] normalizers = {new StringNormalizer("/META-INF/normalize/code-points/", true),
+                new StringNormalizer("/META-INF/normalize/code-points/"),
+                new CharNormalizer("/META-INF/normalize/code-points/", true)};
+        for (TextNormalizer normalizer : normalizers) {
+            String expected = normalizer.normalize(text, Locale.ENGLISH);
+            for (int chunkSize = 2; chunkSize <= text.length() + 1; chunkSize++) {
+                Reader reader = new NormalizingReader(new StringReader(text), normalizer, Locale.ENGLISH, chunkSize);
+                Assert.assertEquals(expected, FileCopyUtils.copyToString(reader));
+
+                StringWriter target = new StringWriter();
+                Writer writer = new NormalizingWriter(target, normalizer, Locale.ENGLISH, chunkSize);
+                for (int i = 0; i < text.length(); i += 3) {
+                    writer.write(text, i, Math.min(3, text.length() - i));
+                    writer.flush();
+                }
+                writer.close();
+                Assert.assertEquals(expected, target.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testNormalizeAll() throws Exception {
+        Locale cs_CZ = new Locale("cs", "CZ");
+        String[] words = {"Žluťoučký", "kůň", "úpěl", "ďábelské", "ódy", "", "ascii"};
+        CharSequence[] texts = new CharSequence[5000];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = words[i % words.length] + i;
+        }
+        TextNormalizer[] normalizers = {new StringNormalizer("/META-INF/normalize/url/"),
+                new CharNormalizer("/META-INF/normalize/url/")};
+        for (TextNormalizer normalizer : normalizers) {
+            String[] expected = new String[texts.length];
+            for (int i = 0; i < texts.length; i++) {
+                expected[i] = normalizer.normalize(texts[i], cs_CZ);
+            }
+            String[] results = new String[texts.length];
+            normalizer.normalizeAll(texts, results, cs_CZ);
+            Assert.assertArrayEquals(expected, results);
+            Assert.assertArrayEquals(expected, normalizer.normalizeAll(Arrays.stream(texts).parallel(), cs_CZ)
+                    .toArray());
+            List<String> list = new ArrayList<>();
+            normalizer.normalizeAll(Arrays.spliterator(texts), cs_CZ).forEachRemaining(list::add);
+            Assert.assertArrayEquals(expected, list.toArray());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNormalizeAllToShortResults() {
+        new StringNormalizer().normalizeAll(new String[]{"a", "b"}, new String[1], Locale.ENGLISH);
+    }
+
+    @Test
+    public void testNormalizedHashEqualsAndCompare() throws Exception {
+        String chars = "abcAB -ščřŽÁ\u4E00\u0000\uD835\uDC00\uD835\uDC1B\uD83D\uDE00\uD83D\uDE01\uDE00";
+        TextNormalizer[] normalizers = {new StringNormalizer("/META-INF/normalize/code-points/", true),
+                new StringNormalizer("/META-INF/normalize/url/"),
+                new CharNormalizer("/META-INF/normalize/code-points/", true),
+                new CharNormalizer("/META-INF/normalize/url/")};
+        Locale cs_CZ = new Locale("cs", "CZ");
+        Random random = new Random(25);
+        for (TextNormalizer normalizer : normalizers) {
+            for (int i = 0; i < 2000; i++) {
+                String a = randomText(random, chars);
+                // the similar texts share the prefix
+                String b = random.nextBoolean() ? randomText(random, chars) : a.substring(0, a.length() / 2)
+                        + randomText(random, chars);
+                String normalizedA = normalizer.normalize(a, cs_CZ);
+                String normalizedB = normalizer.normalize(b, cs_CZ);
+                Assert.assertEquals(a, normalizedA.hashCode(), normalizer.normalizedHash(a, cs_CZ));
+                Assert.assertEquals(a + " " + b, normalizedA.equals(normalizedB),
+                        normalizer.normalizedEquals(a, b, cs_CZ));
+                Assert.assertEquals(a + " " + b, normalizedA.compareTo(normalizedB),
+                        normalizer.normalizedCompare(a, b, cs_CZ));
+            }
+        }
+        StringNormalizer normalizer = new StringNormalizer("/META-INF/normalize/url/");
+        Assert.assertTrue(normalizer.normalizedEquals("Žluťoučký kůň", new StringBuilder("Zlutoucky-kun"), cs_CZ));
+    }
+
+    private static String randomText(Random random, String chars) {
+        StringBuilder result = new StringBuilder();
+        for (int i = random.nextInt(8); i > 0; i--) {
+            result.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return result.toString();
+    }
+
+    @Test
+    public void testShareTables() throws Exception {
+        Locale cs_CZ = new Locale("cs", "CZ");
+        StringTable table = new StringNormalizer("/META-INF/normalize/url/").getTable(cs_CZ);
+        Assert.assertSame(table, new StringNormalizer("/META-INF/normalize/url").getTable(cs_CZ));
+        Assert.assertNotSame(table, new StringNormalizer("/META-INF/normalize/url/", true).getTable(cs_CZ));
+
+        // the tables of the same content are shared even if they are loaded from different resources
+        AtomicInteger loads = new AtomicInteger();
+        TableRepository.Loader<String> loader = content -> {
+            loads.incrementAndGet();
+            return new String(content, "UTF-8");
+        };
+        String shared = TableRepository.get("test", new ByteArrayResource("0041 a".getBytes("UTF-8")), loader);
+        Assert.assertSame(shared, TableRepository.get("test", new ByteArrayResource("0041 a".getBytes("UTF-8")), loader));
+        Assert.assertEquals(1, loads.get());
+        Assert.assertNotSame(shared, TableRepository.get("other", new ByteArrayResource("0041 a".getBytes("UTF-8")), loader));
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGetTableConcurrently() throws Exception {
+        StringNormalizer normalizer = new StringNormalizer("/META-INF/normalize/url/");
+        Locale cs_CZ = new Locale("cs", "CZ");
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Callable<StringTable>> tasks = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> {
+                    start.await();
+                    return normalizer.getTable(cs_CZ);
+                });
+            }
+            List<Future<StringTable>> results = new ArrayList<>(threads);
+            for (Callable<StringTable> task : tasks) {
+                results.add(executor.submit(task));
+            }
+            start.countDown();
+            StringTable table = results.get(0).get();
+            for (Future<StringTable> result : results) {
+                // the table has been loaded only once
+                Assert.assertSame(table, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }